@@ -38,8 +38,9 @@ db.reservations.createIndex({ 'userId': 1 }, { name: 'idx_reservation_user' });
 db.reservations.createIndex({ 'status': 1 }, { name: 'idx_reservation_status' });
 db.reservations.createIndex({ 'createdAt': 1 }, {
   expireAfterSeconds: 2592000,
+  partialFilterExpression: { 'status': { $in: ['COMPENSATED', 'FAILED'] } },
   name: 'idx_reservation_ttl'
-}); // TTL: 30 days
+}); // TTL: 30 days, only reservations that hold no tickets (capacity reconciliation counts the rest)
 print('✓ Indexes created for reservations collection (including TTL)');
 
 // Insert sample venues
@@ -0,0 +1,59 @@
+package com.erez.ticketbot.inventoryservice.benchmark;
+
+import com.erez.ticketbot.inventoryservice.response.EventInventoryResponse;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Event -> EventInventoryResponse mapping, and the pre-serialized read model the endpoints now serve.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class EventMappingBenchmark {
+
+    @Param({"100", "10000"})
+    private int eventCount;
+
+    private InventoryFixture fixture;
+
+    @Setup
+    public void setUp() {
+        fixture = new InventoryFixture(eventCount);
+    }
+
+    @Benchmark
+    public EventInventoryResponse getEventInventory() {
+        return fixture.inventoryService().getEventInventory(1L);
+    }
+
+    @Benchmark
+    public List<EventInventoryResponse> getAllEvents() {
+        return fixture.inventoryService().getAllEvents();
+    }
+
+    @Benchmark
+    public byte[] getEventInventoryJson() {
+        return fixture.inventoryService().getEventInventoryJson(1L);
+    }
+
+    @Benchmark
+    public byte[] getAllEventsJson() {
+        return fixture.inventoryService().getAllEventsJson();
+    }
+}
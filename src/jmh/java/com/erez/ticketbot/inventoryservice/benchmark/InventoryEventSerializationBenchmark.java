@@ -0,0 +1,87 @@
+package com.erez.ticketbot.inventoryservice.benchmark;
+
+import com.erez.ticketbot.inventoryservice.event.InventoryEvent;
+import com.erez.ticketbot.inventoryservice.event.InventoryEventBinaryDeserializer;
+import com.erez.ticketbot.inventoryservice.event.InventoryEventBinarySerializer;
+import org.apache.kafka.common.header.Headers;
+import org.apache.kafka.common.header.internals.RecordHeaders;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.springframework.kafka.support.serializer.JsonDeserializer;
+import org.springframework.kafka.support.serializer.JsonSerializer;
+
+import java.math.BigDecimal;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * InventoryEvent wire formats: JsonSerializer/JsonDeserializer with the settings from
+ * application.properties, and the compact binary codec.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class InventoryEventSerializationBenchmark {
+
+    private static final String TOPIC = "booking-events";
+
+    private final InventoryEvent event = new InventoryEvent(
+            "7f9c2ba4-e88f-11ee-a951-0242ac120002", 42L, 1L, 2L, new BigDecimal("151.00"),
+            InventoryEvent.EventType.BOOKING_VALIDATED);
+
+    private JsonSerializer<InventoryEvent> serializer;
+    private JsonDeserializer<InventoryEvent> deserializer;
+    private InventoryEventBinarySerializer binarySerializer;
+    private InventoryEventBinaryDeserializer binaryDeserializer;
+    private Headers headers;
+    private byte[] payload;
+    private byte[] binaryPayload;
+
+    @Setup
+    public void setUp() {
+        serializer = new JsonSerializer<>();
+        deserializer = new JsonDeserializer<>();
+        deserializer.configure(Map.of(
+                JsonDeserializer.TRUSTED_PACKAGES, "*",
+                JsonDeserializer.TYPE_MAPPINGS,
+                "inventoryEvent:com.erez.ticketbot.inventoryservice.event.InventoryEvent"), false);
+
+        headers = new RecordHeaders();
+        payload = serializer.serialize(TOPIC, headers, event);
+
+        binarySerializer = new InventoryEventBinarySerializer();
+        binaryDeserializer = new InventoryEventBinaryDeserializer();
+        binaryPayload = binarySerializer.serialize(TOPIC, event);
+    }
+
+    @Benchmark
+    public byte[] serialize() {
+        return serializer.serialize(TOPIC, new RecordHeaders(), event);
+    }
+
+    @Benchmark
+    public InventoryEvent deserialize() {
+        return deserializer.deserialize(TOPIC, headers, payload);
+    }
+
+    @Benchmark
+    public byte[] serializeBinary() {
+        return binarySerializer.serialize(TOPIC, event);
+    }
+
+    @Benchmark
+    public InventoryEvent deserializeBinary() {
+        return binaryDeserializer.deserialize(TOPIC, new RecordHeaders(), binaryPayload);
+    }
+}
@@ -0,0 +1,200 @@
+package com.erez.ticketbot.inventoryservice.benchmark;
+
+import com.erez.ticketbot.inventoryservice.dto.CapacityUpdateResult;
+import com.erez.ticketbot.inventoryservice.entity.Event;
+import com.erez.ticketbot.inventoryservice.entity.Reservation;
+import com.erez.ticketbot.inventoryservice.entity.Venue;
+import com.erez.ticketbot.inventoryservice.event.InventoryEvent;
+import com.erez.ticketbot.inventoryservice.repository.CapacityShardRepository;
+import com.erez.ticketbot.inventoryservice.repository.EventRepository;
+import com.erez.ticketbot.inventoryservice.repository.ReservationRepository;
+import com.erez.ticketbot.inventoryservice.repository.SeatMapRepository;
+import com.erez.ticketbot.inventoryservice.repository.VenueRepository;
+import com.erez.ticketbot.inventoryservice.service.CapacityLedger;
+import com.erez.ticketbot.inventoryservice.service.CapacityService;
+import com.erez.ticketbot.inventoryservice.service.EventAdmission;
+import com.erez.ticketbot.inventoryservice.service.EventInventoryView;
+import com.erez.ticketbot.inventoryservice.service.IdempotencyGuard;
+import com.erez.ticketbot.inventoryservice.service.InventoryEventPublisher;
+import com.erez.ticketbot.inventoryservice.service.InventoryMetrics;
+import com.erez.ticketbot.inventoryservice.service.InventoryReadCache;
+import com.erez.ticketbot.inventoryservice.service.InventoryService;
+import com.erez.ticketbot.inventoryservice.service.ReservationArchive;
+import com.erez.ticketbot.inventoryservice.service.ReservationHolds;
+import com.erez.ticketbot.inventoryservice.service.SeatService;
+import com.erez.ticketbot.inventoryservice.service.ShardedCapacity;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.apache.kafka.clients.producer.MockProducer;
+import org.apache.kafka.common.serialization.StringSerializer;
+import org.springframework.beans.factory.support.StaticListableBeanFactory;
+import org.springframework.kafka.core.KafkaTemplate;
+import org.springframework.kafka.core.ProducerFactory;
+import org.springframework.kafka.support.serializer.JsonSerializer;
+import org.springframework.transaction.PlatformTransactionManager;
+import tools.jackson.databind.json.JsonMapper;
+
+import java.lang.reflect.Proxy;
+import java.math.BigDecimal;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.function.BiFunction;
+
+/**
+ * InventoryService wired against in-memory stand-ins for the Mongo repositories
+ * and a MockProducer behind the KafkaTemplate, so benchmarks measure only our code paths.
+ */
+final class InventoryFixture {
+
+    static final long RESERVED_EVENT_ID = 1L;
+    static final long RESERVED_TICKETS = 2L;
+
+    private final Map<Long, Event> events = new ConcurrentHashMap<>();
+    private final MockProducer<String, InventoryEvent> producer =
+            new MockProducer<>(true, null, new StringSerializer(), new JsonSerializer<>());
+    private final InventoryService inventoryService;
+
+    InventoryFixture(int eventCount) {
+        Venue venue = Venue.builder()
+                .id(1L)
+                .name("Madison Square Garden")
+                .address("4 Pennsylvania Plaza, New York, NY 10001")
+                .totalCapacity(20000L)
+                .build();
+        for (long id = 1; id <= eventCount; id++) {
+            events.put(id, Event.builder()
+                    .id(id)
+                    .name("Event " + id)
+                    .totalCapacity(Long.MAX_VALUE / 4)
+                    .leftCapacity(Long.MAX_VALUE / 4)
+                    .ticketPrice(new BigDecimal("75.50"))
+                    .venue(venue)
+                    .build());
+        }
+
+        EventRepository eventRepository = eventRepository();
+        InventoryReadCache readCache = new InventoryReadCache(10_000, 1_000, 1_000);
+        EventAdmission admission = new EventAdmission(new SimpleMeterRegistry(), true, 1000, 32, 2000);
+        CapacityService capacityService = new CapacityService(eventRepository, readCache,
+                new ShardedCapacity(capacityShardRepository(), eventRepository, 250),
+                new StaticListableBeanFactory().getBeanProvider(CapacityLedger.class),
+                admission);
+        ReservationRepository reservationRepository = reservationRepository();
+        InventoryMetrics metrics = new InventoryMetrics(new SimpleMeterRegistry(), reservationRepository,
+                List.of(InventoryEventPublisher.TOPIC));
+        ProducerFactory<String, InventoryEvent> producerFactory = () -> producer;
+        JsonMapper jsonMapper = JsonMapper.builder().build();
+
+        this.inventoryService = new InventoryService(
+                eventRepository,
+                venueRepository(venue),
+                reservationRepository,
+                capacityService,
+                readCache,
+                metrics,
+                new IdempotencyGuard(100_000, 1_000_000, 0.01),
+                new InventoryEventPublisher(new KafkaTemplate<>(producerFactory), metrics, null, false),
+                new SeatService(seatMapRepository(), eventRepository),
+                new EventInventoryView(eventRepository, readCache, capacityService, jsonMapper, 10_000, 60_000),
+                new StaticListableBeanFactory().getBeanProvider(ReservationHolds.class),
+                new StaticListableBeanFactory().getBeanProvider(ReservationArchive.class),
+                admission,
+                jsonMapper,
+                transactionManager(),
+                500,
+                1000,
+                8);
+    }
+
+    InventoryService inventoryService() {
+        return inventoryService;
+    }
+
+    // MockProducer keeps every sent record; drop them between iterations
+    void clearSentRecords() {
+        producer.clear();
+    }
+
+    private EventRepository eventRepository() {
+        return proxy(EventRepository.class, (method, args) -> switch (method) {
+            case "findById" -> Optional.ofNullable(events.get((Long) args[0]));
+            case "findAll" -> new ArrayList<>(events.values());
+            case "reserveCapacity" -> updateCapacity((Long) args[0], -(Long) args[1]);
+            case "releaseCapacity" -> updateCapacity((Long) args[0], (Long) args[1]);
+            default -> throw new UnsupportedOperationException(method);
+        });
+    }
+
+    private CapacityUpdateResult updateCapacity(Long eventId, long delta) {
+        Event event = events.get(eventId);
+        if (event == null) {
+            return CapacityUpdateResult.notFound();
+        }
+        synchronized (event) {
+            if (event.getLeftCapacity() + delta < 0) {
+                return CapacityUpdateResult.insufficient(event.getLeftCapacity());
+            }
+            event.setLeftCapacity(event.getLeftCapacity() + delta);
+            return CapacityUpdateResult.updated(event.getLeftCapacity());
+        }
+    }
+
+    private static VenueRepository venueRepository(Venue venue) {
+        return proxy(VenueRepository.class, (method, args) -> switch (method) {
+            case "findById" -> venue.getId().equals(args[0]) ? Optional.of(venue) : Optional.empty();
+            default -> throw new UnsupportedOperationException(method);
+        });
+    }
+
+    // Fixture events are not sharded
+    private static CapacityShardRepository capacityShardRepository() {
+        return proxy(CapacityShardRepository.class, (method, args) -> {
+            throw new UnsupportedOperationException(method);
+        });
+    }
+
+    // Benchmarks book general admission only
+    private static SeatMapRepository seatMapRepository() {
+        return proxy(SeatMapRepository.class, (method, args) -> {
+            throw new UnsupportedOperationException(method);
+        });
+    }
+
+    // Only seat reservations run in a TransactionTemplate
+    private static PlatformTransactionManager transactionManager() {
+        return proxy(PlatformTransactionManager.class, (method, args) -> {
+            throw new UnsupportedOperationException(method);
+        });
+    }
+
+    // Stateless: every transaction is new, and every compensation finds a RESERVED reservation
+    private static ReservationRepository reservationRepository() {
+        return proxy(ReservationRepository.class, (method, args) -> switch (method) {
+            case "existsByTransactionId" -> false;
+            case "findByTransactionIdIn" -> List.of();
+            case "save", "insert" -> args[0];
+            case "findByTransactionId" -> Optional.of(Reservation.builder()
+                    .transactionId((String) args[0])
+                    .eventId(RESERVED_EVENT_ID)
+                    .ticketCount(RESERVED_TICKETS)
+                    .status(Reservation.ReservationStatus.RESERVED)
+                    .createdAt(LocalDateTime.now())
+                    .build());
+            default -> throw new UnsupportedOperationException(method);
+        });
+    }
+
+    @SuppressWarnings("unchecked")
+    private static <T> T proxy(Class<T> type, BiFunction<String, Object[], Object> handler) {
+        return (T) Proxy.newProxyInstance(type.getClassLoader(), new Class<?>[]{type}, (proxy, method, args) ->
+                switch (method.getName()) {
+                    case "hashCode" -> System.identityHashCode(proxy);
+                    case "equals" -> proxy == args[0];
+                    case "toString" -> "InMemory" + type.getSimpleName();
+                    default -> handler.apply(method.getName(), args);
+                });
+    }
+}
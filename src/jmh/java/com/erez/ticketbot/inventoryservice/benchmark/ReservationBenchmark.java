@@ -0,0 +1,60 @@
+package com.erez.ticketbot.inventoryservice.benchmark;
+
+import com.erez.ticketbot.inventoryservice.event.InventoryEvent;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.math.BigDecimal;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Saga hot paths: reserveInventory and compensateInventory end to end, minus I/O.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class ReservationBenchmark {
+
+    private static final int EVENT_COUNT = 100;
+    private static final BigDecimal TOTAL_PRICE = new BigDecimal("151.00");
+
+    private final AtomicLong sequence = new AtomicLong();
+    private InventoryFixture fixture;
+
+    @Setup
+    public void setUp() {
+        fixture = new InventoryFixture(EVENT_COUNT);
+    }
+
+    @Setup(Level.Iteration)
+    public void clearProducer() {
+        fixture.clearSentRecords();
+    }
+
+    @Benchmark
+    public void reserveInventory() {
+        long n = sequence.incrementAndGet();
+        fixture.inventoryService().reserveInventory(new InventoryEvent(
+                "txn-" + n, 1L, 1 + n % EVENT_COUNT, InventoryFixture.RESERVED_TICKETS, TOTAL_PRICE,
+                InventoryEvent.EventType.BOOKING_VALIDATED));
+    }
+
+    @Benchmark
+    public void compensateInventory() {
+        fixture.inventoryService().compensateInventory(InventoryEvent.compensation(
+                "txn-" + sequence.incrementAndGet(), InventoryEvent.EventType.COMPENSATE_INVENTORY));
+    }
+}
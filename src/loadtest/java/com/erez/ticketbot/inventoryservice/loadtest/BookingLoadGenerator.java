@@ -0,0 +1,114 @@
+package com.erez.ticketbot.inventoryservice.loadtest;
+
+import com.erez.ticketbot.inventoryservice.event.EventTypeFilteringDeserializer;
+import com.erez.ticketbot.inventoryservice.event.InventoryEvent;
+import com.erez.ticketbot.inventoryservice.service.InventoryEventPublisher;
+import org.apache.kafka.clients.producer.KafkaProducer;
+import org.apache.kafka.clients.producer.ProducerConfig;
+import org.apache.kafka.clients.producer.ProducerRecord;
+import org.apache.kafka.common.serialization.StringSerializer;
+import org.springframework.kafka.support.serializer.JsonSerializer;
+
+import java.math.BigDecimal;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.locks.LockSupport;
+
+/**
+ * Drives booking-events at a fixed rate, the way the booking service would: BOOKING_VALIDATED
+ * messages skewed towards the hot event, with a share of redelivered transaction ids, plus
+ * COMPENSATE_INVENTORY for a share of the reservations that come back (some of them sent twice).
+ */
+final class BookingLoadGenerator implements AutoCloseable {
+
+    private static final String BOOKING_TOPIC = "booking-events";
+    private static final byte[] COMPENSATE_HEADER =
+            InventoryEvent.EventType.COMPENSATE_INVENTORY.name().getBytes(StandardCharsets.UTF_8);
+
+    final Map<String, Long> sentAt = new ConcurrentHashMap<>();
+    final Set<String> compensationsRequested = ConcurrentHashMap.newKeySet();
+
+    private final LoadTestConfig config;
+    private final List<Long> eventIds;
+    private final KafkaProducer<String, InventoryEvent> producer;
+    private final List<InventoryEvent> sent;
+    private int duplicatesSent;
+
+    BookingLoadGenerator(LoadTestConfig config, String bootstrapServers, List<Long> eventIds) {
+        this.config = config;
+        this.eventIds = eventIds;
+        this.sent = new ArrayList<>(config.bookings());
+        this.producer = new KafkaProducer<>(Map.of(
+                ProducerConfig.BOOTSTRAP_SERVERS_CONFIG, bootstrapServers,
+                ProducerConfig.LINGER_MS_CONFIG, 5,
+                ProducerConfig.KEY_SERIALIZER_CLASS_CONFIG, StringSerializer.class,
+                ProducerConfig.VALUE_SERIALIZER_CLASS_CONFIG, JsonSerializer.class));
+    }
+
+    // Blocks until every booking has been handed to the producer
+    void run() {
+        ThreadLocalRandom random = ThreadLocalRandom.current();
+        long intervalNanos = 1_000_000_000L / Math.max(1, config.ratePerSecond());
+        long next = System.nanoTime();
+
+        for (int i = 0; i < config.bookings(); i++) {
+            InventoryEvent booking;
+            if (!sent.isEmpty() && random.nextDouble() < config.duplicateRatio()) {
+                booking = sent.get(random.nextInt(sent.size()));
+                duplicatesSent++;
+            } else {
+                long eventId = random.nextDouble() < config.hotEventRatio() || eventIds.size() == 1
+                        ? LoadTestSeeder.HOT_EVENT_ID
+                        : eventIds.get(1 + random.nextInt(eventIds.size() - 1));
+                long tickets = 1 + random.nextInt(config.maxTicketsPerBooking());
+                booking = new InventoryEvent("lt-" + i, (long) random.nextInt(1, 100_000), eventId, tickets,
+                        BigDecimal.valueOf(tickets * 50L), InventoryEvent.EventType.BOOKING_VALIDATED);
+                sent.add(booking);
+                sentAt.put(booking.transactionId(), System.nanoTime());
+            }
+            producer.send(new ProducerRecord<>(BOOKING_TOPIC, booking.eventId().toString(), booking));
+
+            next += intervalNanos;
+            long wait = next - System.nanoTime();
+            if (wait > 0) {
+                LockSupport.parkNanos(wait);
+            }
+        }
+        producer.flush();
+    }
+
+    // Called by the collector for each first INVENTORY_RESERVED
+    void maybeCompensate(InventoryEvent reserved) {
+        ThreadLocalRandom random = ThreadLocalRandom.current();
+        if (random.nextDouble() >= config.compensationRatio()) {
+            return;
+        }
+        compensationsRequested.add(reserved.transactionId());
+        int copies = random.nextDouble() < config.duplicateRatio() ? 2 : 1;
+        for (int copy = 0; copy < copies; copy++) {
+            ProducerRecord<String, InventoryEvent> record = new ProducerRecord<>(InventoryEventPublisher.TOPIC,
+                    reserved.eventId() == null ? null : reserved.eventId().toString(),
+                    InventoryEvent.compensation(reserved.transactionId(), InventoryEvent.EventType.COMPENSATE_INVENTORY));
+            record.headers().add(EventTypeFilteringDeserializer.EVENT_TYPE_HEADER, COMPENSATE_HEADER);
+            producer.send(record);
+        }
+    }
+
+    int uniqueBookings() {
+        return sent.size();
+    }
+
+    int duplicatesSent() {
+        return duplicatesSent;
+    }
+
+    @Override
+    public void close() {
+        producer.close();
+    }
+}
@@ -0,0 +1,50 @@
+package com.erez.ticketbot.inventoryservice.loadtest;
+
+import java.util.HashMap;
+import java.util.Map;
+import java.util.Properties;
+
+/**
+ * Load test settings, read from -Dloadtest.* system properties.
+ * -Dloadtest.app.&lt;property&gt;=value is passed to the service, e.g.
+ * -Dloadtest.app.inventory.booking.batch.enabled=true to load the batch consumer.
+ */
+record LoadTestConfig(
+        int bookings,
+        int ratePerSecond,
+        double hotEventRatio,
+        double duplicateRatio,
+        double compensationRatio,
+        int maxTicketsPerBooking,
+        int partitions,
+        int drainTimeoutSeconds,
+        Long eventCapacity,
+        String mongoUri,
+        String mongodBinary,
+        Map<String, Object> appProperties
+) {
+
+    private static final String APP_PREFIX = "loadtest.app.";
+
+    static LoadTestConfig from(Properties properties) {
+        Map<String, Object> app = new HashMap<>();
+        properties.stringPropertyNames().stream()
+                .filter(name -> name.startsWith(APP_PREFIX))
+                .forEach(name -> app.put(name.substring(APP_PREFIX.length()), properties.getProperty(name)));
+
+        String capacity = properties.getProperty("loadtest.event-capacity");
+        return new LoadTestConfig(
+                Integer.parseInt(properties.getProperty("loadtest.bookings", "20000")),
+                Integer.parseInt(properties.getProperty("loadtest.rate", "2000")),
+                Double.parseDouble(properties.getProperty("loadtest.hot-event-ratio", "0.8")),
+                Double.parseDouble(properties.getProperty("loadtest.duplicate-ratio", "0.05")),
+                Double.parseDouble(properties.getProperty("loadtest.compensation-ratio", "0.1")),
+                Integer.parseInt(properties.getProperty("loadtest.max-tickets", "4")),
+                Integer.parseInt(properties.getProperty("loadtest.partitions", "8")),
+                Integer.parseInt(properties.getProperty("loadtest.drain-timeout-seconds", "120")),
+                capacity == null ? null : Long.parseLong(capacity),
+                properties.getProperty("loadtest.mongo.uri"),
+                properties.getProperty("loadtest.mongod", "mongod"),
+                app);
+    }
+}
@@ -0,0 +1,56 @@
+package com.erez.ticketbot.inventoryservice.loadtest;
+
+import com.erez.ticketbot.inventoryservice.entity.Event;
+import com.erez.ticketbot.inventoryservice.entity.Reservation;
+import com.erez.ticketbot.inventoryservice.entity.Venue;
+import org.springframework.data.mongodb.core.MongoTemplate;
+
+import java.math.BigDecimal;
+import java.util.List;
+
+/**
+ * The venues and events docker/mongodb/init-mongo.js creates, optionally with every event's
+ * capacity overridden (a small capacity makes the hot event sell out during the run).
+ */
+final class LoadTestSeeder {
+
+    static final long HOT_EVENT_ID = 1L;
+
+    private LoadTestSeeder() {
+    }
+
+    static List<Event> seed(MongoTemplate mongoTemplate, Long capacityOverride) {
+        mongoTemplate.dropCollection(Reservation.class);
+        mongoTemplate.dropCollection(Event.class);
+        mongoTemplate.dropCollection(Venue.class);
+
+        Venue madisonSquareGarden = venue(1L, "Madison Square Garden", "4 Pennsylvania Plaza, New York, NY 10001", 20000L);
+        Venue staplesCenter = venue(2L, "Staples Center", "1111 S Figueroa St, Los Angeles, CA 90015", 21000L);
+        Venue redRocks = venue(3L, "Red Rocks Amphitheatre", "18300 W Alameda Pkwy, Morrison, CO 80465", 9525L);
+        mongoTemplate.insertAll(List.of(madisonSquareGarden, staplesCenter, redRocks));
+
+        List<Event> events = List.of(
+                event(1L, "Rock Concert 2024", 15000L, "75.50", madisonSquareGarden, capacityOverride),
+                event(2L, "Basketball Game - Knicks vs Lakers", 18000L, "120.00", madisonSquareGarden, capacityOverride),
+                event(3L, "Summer Music Festival", 9000L, "85.00", redRocks, capacityOverride),
+                event(4L, "Jazz Night", 5000L, "45.00", madisonSquareGarden, capacityOverride));
+        mongoTemplate.insertAll(events);
+        return events;
+    }
+
+    private static Venue venue(Long id, String name, String address, Long totalCapacity) {
+        return Venue.builder().id(id).name(name).address(address).totalCapacity(totalCapacity).build();
+    }
+
+    private static Event event(Long id, String name, Long capacity, String price, Venue venue, Long capacityOverride) {
+        long seats = capacityOverride != null ? capacityOverride : capacity;
+        return Event.builder()
+                .id(id)
+                .name(name)
+                .totalCapacity(seats)
+                .leftCapacity(seats)
+                .ticketPrice(new BigDecimal(price))
+                .venue(venue)
+                .build();
+    }
+}
@@ -0,0 +1,94 @@
+package com.erez.ticketbot.inventoryservice.loadtest;
+
+import com.mongodb.client.MongoClient;
+import com.mongodb.client.MongoClients;
+import org.bson.Document;
+
+import java.io.IOException;
+import java.net.ServerSocket;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.Comparator;
+import java.util.List;
+import java.util.stream.Stream;
+
+/**
+ * MongoDB for the load test: the given URI, or a throwaway single-node replica set launched from
+ * the local mongod binary (transactions and change streams need a replica set).
+ */
+final class MongoStandIn implements AutoCloseable {
+
+    private static final String DATABASE = "inventory_db";
+
+    private final String uri;
+    private final Process process;
+    private final Path dataDirectory;
+
+    private MongoStandIn(String uri, Process process, Path dataDirectory) {
+        this.uri = uri;
+        this.process = process;
+        this.dataDirectory = dataDirectory;
+    }
+
+    static MongoStandIn start(LoadTestConfig config) throws IOException, InterruptedException {
+        if (config.mongoUri() != null) {
+            return new MongoStandIn(config.mongoUri(), null, null);
+        }
+
+        int port = freePort();
+        Path dataDirectory = Files.createTempDirectory("inventory-loadtest-mongo");
+        Process process = new ProcessBuilder(config.mongodBinary(),
+                "--replSet", "rs0", "--port", String.valueOf(port), "--bind_ip", "127.0.0.1",
+                "--dbpath", dataDirectory.toString(), "--quiet")
+                .redirectOutput(dataDirectory.resolve("mongod.log").toFile())
+                .redirectErrorStream(true)
+                .start();
+
+        String direct = "mongodb://127.0.0.1:" + port + "/?directConnection=true";
+        try (MongoClient client = MongoClients.create(direct)) {
+            awaitCommand(client, new Document("ping", 1));
+            client.getDatabase("admin").runCommand(new Document("replSetInitiate", new Document("_id", "rs0")
+                    .append("members", List.of(new Document("_id", 0).append("host", "127.0.0.1:" + port)))));
+            while (!Boolean.TRUE.equals(client.getDatabase("admin").runCommand(new Document("hello", 1)).get("isWritablePrimary"))) {
+                Thread.sleep(200);
+            }
+        }
+        return new MongoStandIn("mongodb://127.0.0.1:" + port + "/" + DATABASE + "?replicaSet=rs0",
+                process, dataDirectory);
+    }
+
+    String uri() {
+        return uri;
+    }
+
+    @Override
+    public void close() throws IOException {
+        if (process == null) {
+            return;
+        }
+        process.destroy();
+        try (Stream<Path> files = Files.walk(dataDirectory)) {
+            files.sorted(Comparator.reverseOrder()).forEach(path -> path.toFile().delete());
+        }
+    }
+
+    private static void awaitCommand(MongoClient client, Document command) throws InterruptedException {
+        for (int attempt = 0; ; attempt++) {
+            try {
+                client.getDatabase("admin").runCommand(command);
+                return;
+            } catch (RuntimeException e) {
+                if (attempt >= 100) {
+                    throw e;
+                }
+                Thread.sleep(200);
+            }
+        }
+    }
+
+    private static int freePort() throws IOException {
+        try (ServerSocket socket = new ServerSocket(0)) {
+            return socket.getLocalPort();
+        }
+    }
+}
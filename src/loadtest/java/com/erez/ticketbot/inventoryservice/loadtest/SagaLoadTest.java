@@ -0,0 +1,173 @@
+package com.erez.ticketbot.inventoryservice.loadtest;
+
+import com.erez.ticketbot.inventoryservice.InventoryserviceApplication;
+import com.erez.ticketbot.inventoryservice.entity.Event;
+import com.erez.ticketbot.inventoryservice.entity.Reservation;
+import com.erez.ticketbot.inventoryservice.repository.ReservationRepository;
+import com.mongodb.client.MongoClient;
+import com.mongodb.client.MongoClients;
+import org.springframework.boot.builder.SpringApplicationBuilder;
+import org.springframework.context.ConfigurableApplicationContext;
+import org.springframework.data.mongodb.core.MongoTemplate;
+import org.springframework.data.mongodb.core.query.Criteria;
+import org.springframework.data.mongodb.core.query.Query;
+import org.springframework.kafka.test.EmbeddedKafkaKraftBroker;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * End-to-end saga load test: embedded Kafka, a local MongoDB replica set and the full service.
+ * Seeds the init-mongo.js catalog, drives bookings and compensations (see BookingLoadGenerator),
+ * waits for every saga to settle and reports throughput, send-to-INVENTORY_RESERVED latency and
+ * correctness: no oversell, one result per booking, every requested compensation applied once.
+ * Fails (non-zero exit under exec:java) when a correctness check fails.
+ */
+public final class SagaLoadTest {
+
+    private SagaLoadTest() {
+    }
+
+    public static void main(String[] args) throws Exception {
+        LoadTestConfig config = LoadTestConfig.from(System.getProperties());
+
+        EmbeddedKafkaKraftBroker kafka = new EmbeddedKafkaKraftBroker(1, config.partitions(),
+                "booking-events", "inventory-events");
+        kafka.afterPropertiesSet();
+        try (MongoStandIn mongo = MongoStandIn.start(config);
+             MongoClient client = MongoClients.create(mongo.uri())) {
+            MongoTemplate mongoTemplate = new MongoTemplate(client, "inventory_db");
+            List<Event> events = LoadTestSeeder.seed(mongoTemplate, config.eventCapacity());
+
+            try (ConfigurableApplicationContext context = new SpringApplicationBuilder(InventoryserviceApplication.class)
+                    .profiles("loadtest")
+                    .properties(serviceProperties(config, kafka.getBrokersAsString(), mongo.uri()))
+                    .run()) {
+                run(config, kafka.getBrokersAsString(), events, mongoTemplate, context);
+            }
+        } finally {
+            kafka.destroy();
+        }
+    }
+
+    private static Map<String, Object> serviceProperties(LoadTestConfig config, String brokers, String mongoUri) {
+        Map<String, Object> properties = new HashMap<>();
+        properties.put("spring.kafka.bootstrap-servers", brokers);
+        properties.put("spring.data.mongodb.uri", mongoUri);
+        properties.put("spring.mongodb.uri", mongoUri);
+        properties.put("inventory.kafka.booking-events.concurrency", config.partitions());
+        properties.put("inventory.kafka.inventory-events.concurrency", config.partitions());
+        properties.putAll(config.appProperties());
+        return properties;
+    }
+
+    private static void run(LoadTestConfig config, String brokers, List<Event> events,
+                            MongoTemplate mongoTemplate, ConfigurableApplicationContext context) throws InterruptedException {
+        List<Long> eventIds = events.stream().map(Event::getId).toList();
+
+        try (BookingLoadGenerator generator = new BookingLoadGenerator(config, brokers, eventIds)) {
+            SagaResultCollector collector = new SagaResultCollector(brokers, config.bookings(),
+                    generator.sentAt, generator::maybeCompensate);
+            Thread collectorThread = new Thread(collector, "loadtest-collector");
+            collectorThread.start();
+
+            long start = System.nanoTime();
+            generator.run();
+            long sendSeconds = TimeUnit.NANOSECONDS.toSeconds(System.nanoTime() - start);
+            System.out.printf("Sent %d bookings (%d unique, %d redelivered) in %ds%n",
+                    config.bookings(), generator.uniqueBookings(), generator.duplicatesSent(), sendSeconds);
+
+            long deadline = System.nanoTime() + TimeUnit.SECONDS.toNanos(config.drainTimeoutSeconds());
+            while (System.nanoTime() < deadline
+                    && (collector.resultCount() < generator.uniqueBookings()
+                    || collector.compensated.size() < generator.compensationsRequested.size())) {
+                Thread.sleep(200);
+            }
+            // Let late duplicates surface before counting them
+            Thread.sleep(2000);
+            collector.close();
+            collectorThread.join();
+
+            report(config, generator, collector, start, mongoTemplate, context.getBean(ReservationRepository.class));
+        }
+    }
+
+    private static void report(LoadTestConfig config, BookingLoadGenerator generator, SagaResultCollector collector,
+                               long start, MongoTemplate mongoTemplate, ReservationRepository reservationRepository) {
+        double seconds = Math.max(1, collector.lastResultNanos.get() - start) / 1e9;
+        long[] latencies = collector.latencies();
+        Arrays.sort(latencies);
+
+        System.out.println("==== Saga load test ====");
+        System.out.printf("Bookings settled: %d/%d (%d reserved, %d failed) in %.1fs -> %.0f sagas/s%n",
+                collector.resultCount(), generator.uniqueBookings(), collector.reserved.size(),
+                collector.failed.size(), seconds, collector.resultCount() / seconds);
+        System.out.printf("Send -> INVENTORY_RESERVED: p50 %.1fms  p95 %.1fms  p99 %.1fms  p99.9 %.1fms  max %.1fms%n",
+                percentile(latencies, 0.50), percentile(latencies, 0.95), percentile(latencies, 0.99),
+                percentile(latencies, 0.999), percentile(latencies, 1.0));
+        System.out.printf("Compensations: %d requested, %d confirmed%n",
+                generator.compensationsRequested.size(), collector.compensated.size());
+
+        List<String> failures = new ArrayList<>();
+
+        // No oversell: sold seats never exceed capacity and match the RESERVED reservations exactly
+        Map<Long, Long> held = reservationRepository.sumTicketsByEvent(List.of(Reservation.ReservationStatus.RESERVED));
+        for (Event event : mongoTemplate.findAll(Event.class)) {
+            long sold = event.getTotalCapacity() - event.getLeftCapacity();
+            long reserved = held.getOrDefault(event.getId(), 0L);
+            System.out.printf("Event %d: %d/%d sold, %d held by RESERVED reservations%n",
+                    event.getId(), sold, event.getTotalCapacity(), reserved);
+            if (event.getLeftCapacity() < 0 || sold != reserved) {
+                failures.add(String.format("event %d: leftCapacity %d, sold %d but RESERVED reservations hold %d",
+                        event.getId(), event.getLeftCapacity(), sold, reserved));
+            }
+        }
+
+        // One saga result per booking, redeliveries included
+        if (collector.resultCount() < generator.uniqueBookings()) {
+            failures.add(String.format("%d bookings never got a result", generator.uniqueBookings() - collector.resultCount()));
+        }
+        int duplicateResults = duplicates(collector.reserved) + duplicates(collector.failed);
+        if (duplicateResults > 0) {
+            failures.add(duplicateResults + " bookings got more than one result");
+        }
+
+        // Every requested compensation applied exactly once
+        Set<String> compensatedInMongo = new HashSet<>();
+        mongoTemplate.find(new Query(Criteria.where("status").is(Reservation.ReservationStatus.COMPENSATED)), Reservation.class)
+                .forEach(reservation -> compensatedInMongo.add(reservation.getTransactionId()));
+        long notApplied = generator.compensationsRequested.stream().filter(id -> !compensatedInMongo.contains(id)).count();
+        if (notApplied > 0) {
+            failures.add(notApplied + " requested compensations not applied");
+        }
+        int duplicateCompensations = duplicates(collector.compensated);
+        if (duplicateCompensations > 0) {
+            failures.add(duplicateCompensations + " compensations confirmed more than once");
+        }
+
+        if (!failures.isEmpty()) {
+            failures.forEach(failure -> System.out.println("FAILED: " + failure));
+            throw new IllegalStateException("Saga load test found " + failures.size() + " correctness problems");
+        }
+        System.out.println("All correctness checks passed");
+    }
+
+    private static int duplicates(Map<String, AtomicInteger> counts) {
+        return (int) counts.values().stream().filter(count -> count.get() > 1).count();
+    }
+
+    private static double percentile(long[] sortedNanos, double percentile) {
+        if (sortedNanos.length == 0) {
+            return 0;
+        }
+        int index = (int) Math.ceil(percentile * sortedNanos.length) - 1;
+        return sortedNanos[Math.max(0, Math.min(index, sortedNanos.length - 1))] / 1e6;
+    }
+}
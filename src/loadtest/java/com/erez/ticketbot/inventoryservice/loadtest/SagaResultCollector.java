@@ -0,0 +1,106 @@
+package com.erez.ticketbot.inventoryservice.loadtest;
+
+import com.erez.ticketbot.inventoryservice.event.InventoryEvent;
+import com.erez.ticketbot.inventoryservice.event.InventoryEventBinaryDeserializer;
+import com.erez.ticketbot.inventoryservice.service.InventoryEventPublisher;
+import org.apache.kafka.clients.consumer.ConsumerConfig;
+import org.apache.kafka.clients.consumer.ConsumerRecord;
+import org.apache.kafka.clients.consumer.KafkaConsumer;
+import org.apache.kafka.common.serialization.StringDeserializer;
+
+import java.time.Duration;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.Consumer;
+
+/**
+ * Reads the service's saga results from inventory-events: counts results per transaction,
+ * records send-to-INVENTORY_RESERVED latency and hands each reservation to the compensation driver.
+ */
+final class SagaResultCollector implements Runnable, AutoCloseable {
+
+    final Map<String, AtomicInteger> reserved = new ConcurrentHashMap<>();
+    final Map<String, AtomicInteger> failed = new ConcurrentHashMap<>();
+    final Map<String, AtomicInteger> compensated = new ConcurrentHashMap<>();
+    final AtomicLong lastResultNanos = new AtomicLong();
+
+    private final KafkaConsumer<String, InventoryEvent> consumer;
+    private final Map<String, Long> sentAt;
+    private final Consumer<InventoryEvent> onReserved;
+    private final long[] latencies;
+    private final AtomicInteger latencyCount = new AtomicInteger();
+    private volatile boolean running = true;
+
+    SagaResultCollector(String bootstrapServers, int expectedBookings, Map<String, Long> sentAt,
+                        Consumer<InventoryEvent> onReserved) {
+        this.consumer = new KafkaConsumer<>(Map.of(
+                ConsumerConfig.BOOTSTRAP_SERVERS_CONFIG, bootstrapServers,
+                ConsumerConfig.GROUP_ID_CONFIG, "inventory-loadtest-collector",
+                ConsumerConfig.AUTO_OFFSET_RESET_CONFIG, "earliest",
+                ConsumerConfig.MAX_POLL_RECORDS_CONFIG, 2000,
+                ConsumerConfig.KEY_DESERIALIZER_CLASS_CONFIG, StringDeserializer.class,
+                ConsumerConfig.VALUE_DESERIALIZER_CLASS_CONFIG, InventoryEventBinaryDeserializer.class,
+                "spring.json.trusted.packages", "*",
+                "spring.json.value.default.type", InventoryEvent.class.getName()));
+        this.sentAt = sentAt;
+        this.onReserved = onReserved;
+        this.latencies = new long[expectedBookings];
+        consumer.subscribe(List.of(InventoryEventPublisher.TOPIC));
+    }
+
+    @Override
+    public void run() {
+        while (running) {
+            for (ConsumerRecord<String, InventoryEvent> record : consumer.poll(Duration.ofMillis(100))) {
+                InventoryEvent event = record.value();
+                if (event != null) {
+                    onResult(event);
+                }
+            }
+        }
+        consumer.close();
+    }
+
+    private void onResult(InventoryEvent event) {
+        switch (event.eventType()) {
+            case INVENTORY_RESERVED -> {
+                if (count(reserved, event) == 1) {
+                    Long sent = sentAt.get(event.transactionId());
+                    int slot = latencyCount.getAndIncrement();
+                    if (sent != null && slot < latencies.length) {
+                        latencies[slot] = System.nanoTime() - sent;
+                    }
+                    onReserved.accept(event);
+                }
+            }
+            case INVENTORY_RESERVATION_FAILED -> count(failed, event);
+            case INVENTORY_COMPENSATED -> count(compensated, event);
+            default -> {
+                // BOOKING_VALIDATED / COMPENSATE_INVENTORY are the driver's own messages
+                return;
+            }
+        }
+        lastResultNanos.set(System.nanoTime());
+    }
+
+    private static int count(Map<String, AtomicInteger> counts, InventoryEvent event) {
+        return counts.computeIfAbsent(event.transactionId(), id -> new AtomicInteger()).incrementAndGet();
+    }
+
+    int resultCount() {
+        return reserved.size() + failed.size();
+    }
+
+    long[] latencies() {
+        return Arrays.copyOf(latencies, Math.min(latencyCount.get(), latencies.length));
+    }
+
+    @Override
+    public void close() {
+        running = false;
+    }
+}
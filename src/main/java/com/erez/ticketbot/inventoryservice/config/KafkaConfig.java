@@ -0,0 +1,43 @@
+package com.erez.ticketbot.inventoryservice.config;
+
+import com.erez.ticketbot.inventoryservice.event.InventoryEvent;
+import com.erez.ticketbot.inventoryservice.service.EventBusyException;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.kafka.listener.CommonErrorHandler;
+import org.springframework.kafka.listener.DefaultErrorHandler;
+import org.springframework.kafka.listener.adapter.RecordFilterStrategy;
+import org.springframework.util.backoff.FixedBackOff;
+
+@Configuration
+public class KafkaConfig {
+
+    // Drops records the EventTypeFilteringDeserializer skipped (null value) before they reach a listener
+    @Bean
+    public RecordFilterStrategy<String, InventoryEvent> skippedRecordFilter() {
+        return record -> record.value() == null;
+    }
+
+    /**
+     * Spring Kafka's default handling (10 immediate attempts, then skip), except for bookings an
+     * event was too busy to admit: those are retried every busy-retry-ms until they get in.
+     */
+    @Bean
+    public CommonErrorHandler kafkaErrorHandler(@Value("${inventory.admission.busy-retry-ms:500}") long busyRetryMs) {
+        DefaultErrorHandler handler = new DefaultErrorHandler(new FixedBackOff(0L, 9L));
+        handler.setBackOffFunction((record, exception) -> isBusy(exception)
+                ? new FixedBackOff(busyRetryMs, FixedBackOff.UNLIMITED_ATTEMPTS)
+                : null);
+        return handler;
+    }
+
+    private static boolean isBusy(Throwable exception) {
+        for (Throwable cause = exception; cause != null; cause = cause.getCause()) {
+            if (cause instanceof EventBusyException) {
+                return true;
+            }
+        }
+        return false;
+    }
+}
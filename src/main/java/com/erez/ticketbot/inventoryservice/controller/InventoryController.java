@@ -1,11 +1,26 @@
 package com.erez.ticketbot.inventoryservice.controller;
 
-import com.erez.ticketbot.inventoryservice.response.EventInventoryResponse;
+import com.erez.ticketbot.inventoryservice.dto.BatchReservationRequest;
+import com.erez.ticketbot.inventoryservice.dto.SeatReservationRequest;
+import com.erez.ticketbot.inventoryservice.response.ArchivedReservationResponse;
+import com.erez.ticketbot.inventoryservice.response.BatchReservationResponse;
+import com.erez.ticketbot.inventoryservice.response.CacheStatsResponse;
+import com.erez.ticketbot.inventoryservice.response.CapacityReconciliationResponse;
+import com.erez.ticketbot.inventoryservice.response.EventPageResponse;
+import com.erez.ticketbot.inventoryservice.response.SeatReservationResponse;
+import com.erez.ticketbot.inventoryservice.response.SectionAvailabilityResponse;
 import com.erez.ticketbot.inventoryservice.response.VenueInventoryResponse;
+import com.erez.ticketbot.inventoryservice.service.CapacityReconciler;
+import com.erez.ticketbot.inventoryservice.service.CapacityUpdateStream;
 import com.erez.ticketbot.inventoryservice.service.InventoryService;
+import com.erez.ticketbot.inventoryservice.service.ReservationArchive;
+import org.springframework.beans.factory.ObjectProvider;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.http.MediaType;
 import org.springframework.http.ResponseEntity;
 import org.springframework.web.bind.annotation.*;
+import org.springframework.web.servlet.mvc.method.annotation.SseEmitter;
+import org.springframework.web.servlet.mvc.method.annotation.StreamingResponseBody;
 
 import java.util.List;
 
@@ -14,22 +29,58 @@ import java.util.List;
 public class InventoryController {
 
     private InventoryService inventoryService;
+    private CapacityUpdateStream capacityUpdateStream;
+    private ObjectProvider<ReservationArchive> reservationArchive;
+    private ObjectProvider<CapacityReconciler> capacityReconciler;
 
     @Autowired
-    public InventoryController(InventoryService inventoryService) {
+    public InventoryController(InventoryService inventoryService, CapacityUpdateStream capacityUpdateStream,
+                               ObjectProvider<ReservationArchive> reservationArchive,
+                               ObjectProvider<CapacityReconciler> capacityReconciler) {
         this.inventoryService = inventoryService;
+        this.capacityUpdateStream = capacityUpdateStream;
+        this.reservationArchive = reservationArchive;
+        this.capacityReconciler = capacityReconciler;
     }
 
 
+    // Bodies come pre-serialized from the read model; no mapping or Jackson work per request.
+    // No produces: that would tie with the NDJSON mapping below for requests without an Accept header
     @GetMapping("inventory/events")
-    public @ResponseBody List<EventInventoryResponse> inventoryGetAllEvents() {
-        return inventoryService.getAllEvents();
+    public ResponseEntity<byte[]> inventoryGetAllEvents() {
+        return ResponseEntity.ok()
+                .contentType(MediaType.APPLICATION_JSON)
+                .body(inventoryService.getAllEventsJson());
 
     }
 
-    @GetMapping("inventory/event/{eventId}")
-    public @ResponseBody EventInventoryResponse inventoryForEvent(@PathVariable("eventId") Long eventId) {
-        return inventoryService.getEventInventory(eventId);
+    @GetMapping(value = "inventory/events", params = "limit")
+    public @ResponseBody EventPageResponse inventoryGetEventsPage(@RequestParam("limit") int limit,
+                                                                  @RequestParam(value = "after", required = false) Long after) {
+        return inventoryService.getEventsPage(after, limit);
+
+    }
+
+    @GetMapping(value = "inventory/events", produces = MediaType.APPLICATION_NDJSON_VALUE)
+    public ResponseEntity<StreamingResponseBody> inventoryStreamEvents() {
+        return ResponseEntity.ok()
+                .contentType(MediaType.APPLICATION_NDJSON)
+                .body(inventoryService::streamEvents);
+
+    }
+
+    // Server-sent "capacity" events with [{eventId, leftCapacity}] whenever subscribed events change
+    @GetMapping(value = "inventory/events/capacity/stream", produces = MediaType.TEXT_EVENT_STREAM_VALUE)
+    public SseEmitter inventoryCapacityStream(@RequestParam("eventIds") List<Long> eventIds) {
+        return capacityUpdateStream.subscribe(eventIds);
+
+    }
+
+    @GetMapping(value = "inventory/event/{eventId}", produces = MediaType.APPLICATION_JSON_VALUE)
+    public ResponseEntity<byte[]> inventoryForEvent(@PathVariable("eventId") Long eventId) {
+        return ResponseEntity.ok()
+                .contentType(MediaType.APPLICATION_JSON)
+                .body(inventoryService.getEventInventoryJson(eventId));
 
     }
 
@@ -40,6 +91,54 @@ public class InventoryController {
 
     }
 
+    @GetMapping("/inventory/cache/stats")
+    public @ResponseBody List<CacheStatsResponse> inventoryCacheStats() {
+        return inventoryService.getCacheStats();
+
+    }
+
+    @PostMapping("/inventory/reservations/batch")
+    public @ResponseBody BatchReservationResponse reserveBatch(@RequestBody BatchReservationRequest request) {
+        return inventoryService.reserveInventoryBulk(request);
+
+    }
+
+    @PutMapping("/inventory/reservations/{transactionId}/confirm")
+    public ResponseEntity<Void> confirmReservation(@PathVariable("transactionId") String transactionId) {
+        inventoryService.confirmReservation(transactionId);
+        return ResponseEntity.ok().build();
+    }
+
+    @GetMapping("/inventory/archive/reservations/{transactionId}")
+    public @ResponseBody ArchivedReservationResponse archivedReservation(@PathVariable("transactionId") String transactionId) {
+        return archive().getReservation(transactionId);
+    }
+
+    @GetMapping(value = "/inventory/archive/reservations", params = "eventId")
+    public @ResponseBody List<ArchivedReservationResponse> archivedReservationsForEvent(@RequestParam("eventId") Long eventId) {
+        return archive().getEventReservations(eventId);
+    }
+
+    @GetMapping("/inventory/event/{eventId}/seats")
+    public @ResponseBody List<SectionAvailabilityResponse> inventorySeatsForEvent(@PathVariable("eventId") Long eventId) {
+        return inventoryService.getSeatAvailability(eventId);
+
+    }
+
+    @PostMapping("/inventory/event/{eventId}/seats/reservations")
+    public @ResponseBody SeatReservationResponse reserveSeats(@PathVariable("eventId") Long eventId,
+                                                              @RequestBody SeatReservationRequest request) {
+        return inventoryService.reserveSeats(eventId, request);
+
+    }
+
+    @PutMapping("/inventory/event/{eventId}/capacity/shards/{shards}")
+    public ResponseEntity<Void> shardEventCapacity(@PathVariable("eventId") Long eventId, @PathVariable("shards") int shards) {
+        inventoryService.shardEventCapacity(eventId, shards);
+        return ResponseEntity.ok().build();
+
+    }
+
     @PutMapping("/inventory/event/{eventId}/capacity/{capacity}")
     public ResponseEntity<Void> updateEventCapacity(@PathVariable("eventId") Long eventId, @PathVariable("capacity") Long ticketsBooked){
     inventoryService.updateEventCapacity(eventId,ticketsBooked);
@@ -47,6 +146,21 @@ public class InventoryController {
 
     }
 
+    // Runs a reconciliation pass now; repairs need two passes to agree, like the scheduled runs
+    @PostMapping("/inventory/capacity/reconciliation")
+    public @ResponseBody CapacityReconciliationResponse reconcileCapacity() {
+        CapacityReconciler reconciler = capacityReconciler.getIfAvailable();
+        if (reconciler == null) {
+            throw new RuntimeException("Capacity reconciliation is not enabled");
+        }
+        return reconciler.reconcile();
+    }
 
-
+    private ReservationArchive archive() {
+        ReservationArchive archive = reservationArchive.getIfAvailable();
+        if (archive == null) {
+            throw new RuntimeException("Reservation archive is not enabled");
+        }
+        return archive;
+    }
 }
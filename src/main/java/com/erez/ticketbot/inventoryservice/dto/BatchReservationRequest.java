@@ -0,0 +1,30 @@
+package com.erez.ticketbot.inventoryservice.dto;
+
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.math.BigDecimal;
+import java.util.List;
+
+@Data
+@Builder
+@NoArgsConstructor
+@AllArgsConstructor
+public class BatchReservationRequest {
+
+    private List<Item> items;
+
+    @Data
+    @Builder
+    @NoArgsConstructor
+    @AllArgsConstructor
+    public static class Item {
+        private String transactionId;
+        private Long userId;
+        private Long eventId;
+        private Long ticketCount;
+        private BigDecimal totalPrice;
+    }
+}
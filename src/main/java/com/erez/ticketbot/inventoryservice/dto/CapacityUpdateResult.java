@@ -0,0 +1,37 @@
+package com.erez.ticketbot.inventoryservice.dto;
+
+/**
+ * Outcome of a single-round-trip conditional capacity update on an Event document.
+ * leftCapacity holds the new value when UPDATED, the current value when
+ * INSUFFICIENT_CAPACITY, and null when the event does not exist.
+ * For sharded events shard names the CapacityShard that was updated and leftCapacity is that
+ * shard's value; shard is null when the Event document itself was updated.
+ */
+public record CapacityUpdateResult(Outcome outcome, Long leftCapacity, Integer shard) {
+
+    public static CapacityUpdateResult updated(Long leftCapacity) {
+        return new CapacityUpdateResult(Outcome.UPDATED, leftCapacity, null);
+    }
+
+    public static CapacityUpdateResult updated(Long leftCapacity, int shard) {
+        return new CapacityUpdateResult(Outcome.UPDATED, leftCapacity, shard);
+    }
+
+    public static CapacityUpdateResult insufficient(Long leftCapacity) {
+        return new CapacityUpdateResult(Outcome.INSUFFICIENT_CAPACITY, leftCapacity, null);
+    }
+
+    public static CapacityUpdateResult notFound() {
+        return new CapacityUpdateResult(Outcome.EVENT_NOT_FOUND, null, null);
+    }
+
+    public boolean isUpdated() {
+        return outcome == Outcome.UPDATED;
+    }
+
+    public enum Outcome {
+        UPDATED,
+        INSUFFICIENT_CAPACITY,
+        EVENT_NOT_FOUND
+    }
+}
@@ -0,0 +1,23 @@
+package com.erez.ticketbot.inventoryservice.dto;
+
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.math.BigDecimal;
+import java.util.List;
+
+@Data
+@Builder
+@NoArgsConstructor
+@AllArgsConstructor
+public class SeatReservationRequest {
+    private String transactionId;
+    private Long userId;
+    private String sectionId;
+    // Specific seat indexes (row * seatsPerRow + seat); when empty, the best ticketCount adjacent seats
+    private List<Integer> seats;
+    private Long ticketCount;
+    private BigDecimal totalPrice;
+}
@@ -0,0 +1,31 @@
+package com.erez.ticketbot.inventoryservice.entity;
+
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+import org.springframework.data.annotation.Id;
+import org.springframework.data.mongodb.core.index.CompoundIndex;
+import org.springframework.data.mongodb.core.mapping.Document;
+
+/**
+ * One slice of a sharded event's capacity. An event with capacityShards = N has shards 0..N-1;
+ * its remaining capacity is Event.leftCapacity plus the sum of its shards.
+ */
+@Document(collection = "capacity_shards")
+@CompoundIndex(name = "event_shard", def = "{'eventId': 1, 'shard': 1}", unique = true)
+@Data
+@Builder
+@NoArgsConstructor
+@AllArgsConstructor
+public class CapacityShard {
+
+    @Id
+    private String mongoId;
+
+    private Long eventId;
+
+    private Integer shard;
+
+    private Long leftCapacity;
+}
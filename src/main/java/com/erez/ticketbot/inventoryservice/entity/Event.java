@@ -12,7 +12,7 @@ import java.math.BigDecimal;
 
 @Document(collection = "events")
 @Data
-@Builder
+@Builder(toBuilder = true)
 @NoArgsConstructor
 @AllArgsConstructor
 public class Event {
@@ -34,4 +34,7 @@ public class Event {
     private BigDecimal ticketPrice;
 
     private Venue venue;
+
+    // Set when leftCapacity has been split across CapacityShard documents for write throughput
+    private Integer capacityShards;
 }
\ No newline at end of file
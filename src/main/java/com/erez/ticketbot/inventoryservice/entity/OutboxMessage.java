@@ -0,0 +1,33 @@
+package com.erez.ticketbot.inventoryservice.entity;
+
+import com.erez.ticketbot.inventoryservice.event.InventoryEvent;
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+import org.springframework.data.annotation.Id;
+import org.springframework.data.mongodb.core.mapping.Document;
+
+import java.time.LocalDateTime;
+
+/**
+ * Saga event waiting to be relayed to Kafka. Written in the same transaction as the
+ * reservation/capacity change it describes and deleted once the broker has acknowledged it.
+ */
+@Document(collection = "inventory_outbox")
+@Data
+@Builder
+@NoArgsConstructor
+@AllArgsConstructor
+public class OutboxMessage {
+
+    @Id
+    private String id;
+
+    // Kafka record key
+    private Long eventId;
+
+    private InventoryEvent payload;
+
+    private LocalDateTime createdAt;
+}
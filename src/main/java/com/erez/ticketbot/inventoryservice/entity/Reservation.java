@@ -9,6 +9,7 @@ import org.springframework.data.mongodb.core.index.Indexed;
 import org.springframework.data.mongodb.core.mapping.Document;
 
 import java.time.LocalDateTime;
+import java.util.List;
 
 @Document(collection = "reservations")
 @Data
@@ -40,6 +41,18 @@ public class Reservation {
     private LocalDateTime createdAt;
 
     private String errorMessage;
+
+    // Assigned seating only: seat indexes (row * seatsPerRow + seat) claimed in sectionId's seat map
+    private String sectionId;
+
+    private List<Integer> seats;
+
+    // Sharded events only: the CapacityShard the tickets were taken from, so compensation returns them there
+    private Integer capacityShard;
+
+    // With inventory.holds.enabled: when an unconfirmed RESERVED reservation gives its tickets back
+    private LocalDateTime holdExpiresAt;
+
     public enum ReservationStatus {
 
         RESERVED,
@@ -49,6 +62,10 @@ public class Reservation {
     }
 
 
+    public boolean hasSeats() {
+        return this.seats != null && !this.seats.isEmpty();
+    }
+
     public boolean canBeCompensated() {
         return this.status == ReservationStatus.RESERVED;
     }
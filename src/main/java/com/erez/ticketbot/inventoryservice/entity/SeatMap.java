@@ -0,0 +1,39 @@
+package com.erez.ticketbot.inventoryservice.entity;
+
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+import org.springframework.data.annotation.Id;
+import org.springframework.data.mongodb.core.index.CompoundIndex;
+import org.springframework.data.mongodb.core.mapping.Document;
+
+import java.util.List;
+
+/**
+ * Seat map of one section of one event, as a bitmap.
+ * Seat i (row * seatsPerRow + seat) is taken when bit i % 64 of taken[i / 64] is set.
+ */
+@Document(collection = "seat_maps")
+@CompoundIndex(name = "event_section", def = "{'eventId': 1, 'sectionId': 1}", unique = true)
+@Data
+@Builder
+@NoArgsConstructor
+@AllArgsConstructor
+public class SeatMap {
+
+    @Id
+    private String mongoId;
+
+    private Long eventId;
+
+    private String sectionId;
+
+    private Integer rows;
+
+    private Integer seatsPerRow;
+
+    private List<Long> taken;
+
+    private Long available;
+}
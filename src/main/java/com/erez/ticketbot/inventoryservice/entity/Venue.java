@@ -8,6 +8,7 @@ import org.springframework.data.annotation.Id;
 import org.springframework.data.mongodb.core.index.Indexed;
 import org.springframework.data.mongodb.core.mapping.Document;
 
+import java.util.List;
 
 @Document(collection = "venues")
 @Data
@@ -28,4 +29,18 @@ public class Venue {
     private String address;
 
     private Long totalCapacity;
+
+    // Assigned-seating layout; venues without sections are general admission only
+    private List<Section> sections;
+
+    @Data
+    @Builder
+    @NoArgsConstructor
+    @AllArgsConstructor
+    public static class Section {
+        private String id;
+        // Row 0 is closest to the stage
+        private Integer rows;
+        private Integer seatsPerRow;
+    }
 }
\ No newline at end of file
@@ -0,0 +1,67 @@
+package com.erez.ticketbot.inventoryservice.event;
+
+import org.apache.kafka.common.header.Header;
+import org.apache.kafka.common.header.Headers;
+import org.apache.kafka.common.serialization.Deserializer;
+
+import java.nio.charset.StandardCharsets;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Value deserializer that looks at the event type header before touching the payload.
+ * Records whose header names a type outside inventory.event-type.accepted come back as null
+ * without being parsed, and the listener's record filter drops them. Records without the header
+ * (older producers) are deserialized as usual and filtered by the listener on eventType.
+ * Payloads may be binary or JSON, see InventoryEventBinaryDeserializer.
+ */
+public class EventTypeFilteringDeserializer implements Deserializer<InventoryEvent> {
+
+    public static final String EVENT_TYPE_HEADER = "inventory-event-type";
+    public static final String ACCEPTED_TYPES_CONFIG = "inventory.event-type.accepted";
+
+    private final InventoryEventBinaryDeserializer delegate = new InventoryEventBinaryDeserializer();
+    private List<byte[]> acceptedTypes = List.of();
+
+    @Override
+    public void configure(Map<String, ?> configs, boolean isKey) {
+        delegate.configure(configs, isKey);
+        Object accepted = configs.get(ACCEPTED_TYPES_CONFIG);
+        if (accepted != null) {
+            acceptedTypes = Arrays.stream(accepted.toString().split(","))
+                    .map(String::trim)
+                    .filter(type -> !type.isEmpty())
+                    .map(type -> type.getBytes(StandardCharsets.UTF_8))
+                    .toList();
+        }
+    }
+
+    @Override
+    public InventoryEvent deserialize(String topic, byte[] data) {
+        return delegate.deserialize(topic, data);
+    }
+
+    @Override
+    public InventoryEvent deserialize(String topic, Headers headers, byte[] data) {
+        Header eventType = headers.lastHeader(EVENT_TYPE_HEADER);
+        if (eventType != null && !acceptedTypes.isEmpty() && !isAccepted(eventType.value())) {
+            return null;
+        }
+        return delegate.deserialize(topic, headers, data);
+    }
+
+    @Override
+    public void close() {
+        delegate.close();
+    }
+
+    private boolean isAccepted(byte[] eventType) {
+        for (byte[] accepted : acceptedTypes) {
+            if (Arrays.equals(accepted, eventType)) {
+                return true;
+            }
+        }
+        return false;
+    }
+}
@@ -0,0 +1,39 @@
+package com.erez.ticketbot.inventoryservice.event;
+
+import org.apache.kafka.common.header.Headers;
+import org.apache.kafka.common.serialization.Deserializer;
+import org.springframework.kafka.support.serializer.JsonDeserializer;
+
+import java.util.Map;
+
+/**
+ * Kafka value deserializer for InventoryEvent that reads both wire formats:
+ * the compact InventoryEventCodec format, recognised by its magic byte, and legacy JSON,
+ * handed to a JsonDeserializer configured with the same consumer properties.
+ */
+public class InventoryEventBinaryDeserializer implements Deserializer<InventoryEvent> {
+
+    private final JsonDeserializer<InventoryEvent> legacy = new JsonDeserializer<>();
+
+    @Override
+    public void configure(Map<String, ?> configs, boolean isKey) {
+        legacy.configure(configs, isKey);
+    }
+
+    @Override
+    public InventoryEvent deserialize(String topic, byte[] data) {
+        return InventoryEventCodec.isBinary(data) ? InventoryEventCodec.decode(data) : legacy.deserialize(topic, data);
+    }
+
+    @Override
+    public InventoryEvent deserialize(String topic, Headers headers, byte[] data) {
+        return InventoryEventCodec.isBinary(data)
+                ? InventoryEventCodec.decode(data)
+                : legacy.deserialize(topic, headers, data);
+    }
+
+    @Override
+    public void close() {
+        legacy.close();
+    }
+}
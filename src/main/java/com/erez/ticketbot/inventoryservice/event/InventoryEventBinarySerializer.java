@@ -0,0 +1,15 @@
+package com.erez.ticketbot.inventoryservice.event;
+
+import org.apache.kafka.common.serialization.Serializer;
+
+/**
+ * Kafka value serializer writing the compact InventoryEventCodec format.
+ * Switch producers to it only after every consumer runs InventoryEventBinaryDeserializer.
+ */
+public class InventoryEventBinarySerializer implements Serializer<InventoryEvent> {
+
+    @Override
+    public byte[] serialize(String topic, InventoryEvent event) {
+        return event == null ? null : InventoryEventCodec.encode(event);
+    }
+}
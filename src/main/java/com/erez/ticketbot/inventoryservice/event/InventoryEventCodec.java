@@ -0,0 +1,210 @@
+package com.erez.ticketbot.inventoryservice.event;
+
+import org.apache.kafka.common.errors.SerializationException;
+
+import java.math.BigDecimal;
+import java.math.BigInteger;
+import java.nio.charset.StandardCharsets;
+import java.util.Arrays;
+
+/**
+ * Compact binary encoding of InventoryEvent.
+ * <pre>
+ * magic(0xC1) version(1) flags eventType:varint transactionId:bytes
+ * [userId:zigzag] [eventId:zigzag] [ticketCount:zigzag] [totalPrice:decimal] [errorMessage:bytes]
+ * </pre>
+ * Optional fields are present when their flag bit is set. bytes = varint length + UTF-8;
+ * decimal = zigzag scale, then 0 + zigzag unscaled value, or 1 + length + two's complement bytes
+ * for unscaled values that do not fit in a long.
+ * The event type travels as its ordinal, so EventType constants may only ever be appended.
+ * JSON payloads start with '{' or whitespace and can never begin with the magic byte.
+ */
+public final class InventoryEventCodec {
+
+    public static final byte MAGIC = (byte) 0xC1;
+    public static final byte VERSION = 1;
+
+    private static final int HAS_USER_ID = 1;
+    private static final int HAS_EVENT_ID = 1 << 1;
+    private static final int HAS_TICKET_COUNT = 1 << 2;
+    private static final int HAS_TOTAL_PRICE = 1 << 3;
+    private static final int HAS_ERROR_MESSAGE = 1 << 4;
+
+    private static final InventoryEvent.EventType[] EVENT_TYPES = InventoryEvent.EventType.values();
+    private static final int MAX_VARINT = 10;
+
+    private InventoryEventCodec() {
+    }
+
+    public static boolean isBinary(byte[] data) {
+        return data != null && data.length > 1 && data[0] == MAGIC;
+    }
+
+    public static byte[] encode(InventoryEvent event) {
+        byte[] transactionId = event.transactionId().getBytes(StandardCharsets.UTF_8);
+        byte[] errorMessage = event.errorMessage() == null ? null : event.errorMessage().getBytes(StandardCharsets.UTF_8);
+        BigDecimal totalPrice = event.totalPrice();
+        byte[] bigUnscaled = totalPrice == null || totalPrice.unscaledValue().bitLength() < 64
+                ? null
+                : totalPrice.unscaledValue().toByteArray();
+
+        int flags = (event.userId() != null ? HAS_USER_ID : 0)
+                | (event.eventId() != null ? HAS_EVENT_ID : 0)
+                | (event.ticketCount() != null ? HAS_TICKET_COUNT : 0)
+                | (totalPrice != null ? HAS_TOTAL_PRICE : 0)
+                | (errorMessage != null ? HAS_ERROR_MESSAGE : 0);
+
+        Writer out = new Writer(3 + MAX_VARINT * 6 + transactionId.length
+                + (bigUnscaled == null ? 0 : MAX_VARINT + bigUnscaled.length)
+                + (errorMessage == null ? 0 : MAX_VARINT + errorMessage.length));
+        out.put(MAGIC);
+        out.put(VERSION);
+        out.put((byte) flags);
+        out.varint(event.eventType().ordinal());
+        out.bytes(transactionId);
+        if (event.userId() != null) {
+            out.zigzag(event.userId());
+        }
+        if (event.eventId() != null) {
+            out.zigzag(event.eventId());
+        }
+        if (event.ticketCount() != null) {
+            out.zigzag(event.ticketCount());
+        }
+        if (totalPrice != null) {
+            out.zigzag(totalPrice.scale());
+            if (bigUnscaled == null) {
+                out.put((byte) 0);
+                out.zigzag(totalPrice.unscaledValue().longValue());
+            } else {
+                out.put((byte) 1);
+                out.bytes(bigUnscaled);
+            }
+        }
+        if (errorMessage != null) {
+            out.bytes(errorMessage);
+        }
+        return out.toByteArray();
+    }
+
+    public static InventoryEvent decode(byte[] data) {
+        Reader in = new Reader(data);
+        if (in.get() != MAGIC) {
+            throw new SerializationException("Not a binary InventoryEvent");
+        }
+        byte version = in.get();
+        if (version != VERSION) {
+            throw new SerializationException("Unsupported InventoryEvent wire version: " + version);
+        }
+
+        int flags = in.get();
+        // Range-checked as a long: a corrupt varint can be negative, or wrap to a valid int
+        long ordinal = in.varint();
+        if (ordinal < 0 || ordinal >= EVENT_TYPES.length) {
+            throw new SerializationException("Unknown InventoryEvent type ordinal: " + ordinal);
+        }
+        String transactionId = in.string();
+        Long userId = (flags & HAS_USER_ID) != 0 ? in.zigzag() : null;
+        Long eventId = (flags & HAS_EVENT_ID) != 0 ? in.zigzag() : null;
+        Long ticketCount = (flags & HAS_TICKET_COUNT) != 0 ? in.zigzag() : null;
+        BigDecimal totalPrice = null;
+        if ((flags & HAS_TOTAL_PRICE) != 0) {
+            int scale = (int) in.zigzag();
+            totalPrice = in.get() == 0
+                    ? BigDecimal.valueOf(in.zigzag(), scale)
+                    : new BigDecimal(new BigInteger(in.rawBytes()), scale);
+        }
+        String errorMessage = (flags & HAS_ERROR_MESSAGE) != 0 ? in.string() : null;
+
+        return new InventoryEvent(transactionId, userId, eventId, ticketCount, totalPrice,
+                EVENT_TYPES[(int) ordinal], errorMessage);
+    }
+
+    private static final class Writer {
+        private final byte[] buffer;
+        private int position;
+
+        private Writer(int capacity) {
+            this.buffer = new byte[capacity];
+        }
+
+        private void put(byte value) {
+            buffer[position++] = value;
+        }
+
+        private void varint(long value) {
+            while ((value & ~0x7FL) != 0) {
+                buffer[position++] = (byte) ((value & 0x7F) | 0x80);
+                value >>>= 7;
+            }
+            buffer[position++] = (byte) value;
+        }
+
+        private void zigzag(long value) {
+            varint((value << 1) ^ (value >> 63));
+        }
+
+        private void bytes(byte[] value) {
+            varint(value.length);
+            System.arraycopy(value, 0, buffer, position, value.length);
+            position += value.length;
+        }
+
+        private byte[] toByteArray() {
+            return Arrays.copyOf(buffer, position);
+        }
+    }
+
+    private static final class Reader {
+        private final byte[] data;
+        private int position;
+
+        private Reader(byte[] data) {
+            this.data = data;
+        }
+
+        private byte get() {
+            if (position >= data.length) {
+                throw new SerializationException("Truncated InventoryEvent payload");
+            }
+            return data[position++];
+        }
+
+        private long varint() {
+            long value = 0;
+            for (int shift = 0; shift < 64; shift += 7) {
+                byte b = get();
+                value |= (long) (b & 0x7F) << shift;
+                if ((b & 0x80) == 0) {
+                    return value;
+                }
+            }
+            throw new SerializationException("Malformed varint in InventoryEvent payload");
+        }
+
+        private long zigzag() {
+            long value = varint();
+            return (value >>> 1) ^ -(value & 1);
+        }
+
+        private byte[] rawBytes() {
+            int length = (int) varint();
+            if (length < 0 || position + length > data.length) {
+                throw new SerializationException("Truncated InventoryEvent payload");
+            }
+            byte[] value = Arrays.copyOfRange(data, position, position + length);
+            position += length;
+            return value;
+        }
+
+        private String string() {
+            int length = (int) varint();
+            if (length < 0 || position + length > data.length) {
+                throw new SerializationException("Truncated InventoryEvent payload");
+            }
+            String value = new String(data, position, length, StandardCharsets.UTF_8);
+            position += length;
+            return value;
+        }
+    }
+}
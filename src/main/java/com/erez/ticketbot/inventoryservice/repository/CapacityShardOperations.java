@@ -0,0 +1,16 @@
+package com.erez.ticketbot.inventoryservice.repository;
+
+/**
+ * Atomic updates on CapacityShard documents, one findAndModify each.
+ */
+public interface CapacityShardOperations {
+
+    // Decrements the shard by tickets only if it holds at least tickets; new value, or null if it does not
+    Long reserveFromShard(Long eventId, int shard, long tickets);
+
+    // Increments the shard by tickets; new value, or null if the shard does not exist
+    Long releaseToShard(Long eventId, int shard, long tickets);
+
+    // Sum of leftCapacity over the event's shards
+    long sumLeftCapacity(Long eventId);
+}
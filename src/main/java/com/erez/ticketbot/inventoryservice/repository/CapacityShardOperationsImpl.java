@@ -0,0 +1,57 @@
+package com.erez.ticketbot.inventoryservice.repository;
+
+import com.erez.ticketbot.inventoryservice.entity.CapacityShard;
+import org.bson.Document;
+import org.springframework.data.mongodb.core.FindAndModifyOptions;
+import org.springframework.data.mongodb.core.MongoTemplate;
+import org.springframework.data.mongodb.core.aggregation.Aggregation;
+import org.springframework.data.mongodb.core.query.Criteria;
+import org.springframework.data.mongodb.core.query.Query;
+import org.springframework.data.mongodb.core.query.Update;
+
+/**
+ * MongoTemplate backed fragment of CapacityShardRepository
+ */
+public class CapacityShardOperationsImpl implements CapacityShardOperations {
+
+    private static final String EVENT_ID = "eventId";
+    private static final String SHARD = "shard";
+    private static final String LEFT_CAPACITY = "leftCapacity";
+
+    private final MongoTemplate mongoTemplate;
+
+    public CapacityShardOperationsImpl(MongoTemplate mongoTemplate) {
+        this.mongoTemplate = mongoTemplate;
+    }
+
+    @Override
+    public Long reserveFromShard(Long eventId, int shard, long tickets) {
+        return increment(new Query(Criteria.where(EVENT_ID).is(eventId).and(SHARD).is(shard)
+                .and(LEFT_CAPACITY).gte(tickets)), -tickets);
+    }
+
+    @Override
+    public Long releaseToShard(Long eventId, int shard, long tickets) {
+        return increment(new Query(Criteria.where(EVENT_ID).is(eventId).and(SHARD).is(shard)), tickets);
+    }
+
+    @Override
+    public long sumLeftCapacity(Long eventId) {
+        Aggregation aggregation = Aggregation.newAggregation(
+                Aggregation.match(Criteria.where(EVENT_ID).is(eventId)),
+                Aggregation.group(EVENT_ID).sum(LEFT_CAPACITY).as("total"));
+
+        Document row = mongoTemplate.aggregate(aggregation, CapacityShard.class, Document.class).getUniqueMappedResult();
+        Number total = row == null ? null : (Number) row.get("total");
+        return total == null ? 0L : total.longValue();
+    }
+
+    private Long increment(Query query, long delta) {
+        query.fields().include(LEFT_CAPACITY);
+        CapacityShard updated = mongoTemplate.findAndModify(query,
+                new Update().inc(LEFT_CAPACITY, delta),
+                FindAndModifyOptions.options().returnNew(true),
+                CapacityShard.class);
+        return updated == null ? null : updated.getLeftCapacity();
+    }
+}
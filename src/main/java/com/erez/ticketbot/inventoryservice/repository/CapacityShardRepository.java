@@ -0,0 +1,13 @@
+package com.erez.ticketbot.inventoryservice.repository;
+
+import com.erez.ticketbot.inventoryservice.entity.CapacityShard;
+import org.springframework.data.mongodb.repository.MongoRepository;
+import org.springframework.stereotype.Repository;
+
+import java.util.List;
+
+@Repository
+public interface CapacityShardRepository extends MongoRepository<CapacityShard, String>, CapacityShardOperations {
+
+    List<CapacityShard> findByEventId(Long eventId);
+}
@@ -0,0 +1,35 @@
+package com.erez.ticketbot.inventoryservice.repository;
+
+import com.erez.ticketbot.inventoryservice.dto.CapacityUpdateResult;
+
+import java.util.Map;
+
+/**
+ * Atomic capacity updates on Event documents.
+ * Each call is a single findAndModify guarded on the server side, so concurrent
+ * bookings never read-modify-write the whole document.
+ */
+public interface EventCapacityOperations {
+
+    // Decrements leftCapacity by tickets only if leftCapacity >= tickets
+    CapacityUpdateResult reserveCapacity(Long eventId, long tickets);
+
+    // Increments leftCapacity by tickets
+    CapacityUpdateResult releaseCapacity(Long eventId, long tickets);
+
+    // Overwrites leftCapacity, used when repairing drift
+    void setLeftCapacity(Long eventId, long leftCapacity);
+
+    // Overwrites leftCapacity only while it still equals observed; false when it has moved on
+    boolean replaceLeftCapacity(Long eventId, long observed, long leftCapacity);
+
+    // Applies eventId -> delta increments in one unordered bulk write, in the map's iteration order,
+    // so a MongoBulkWriteException's error indexes point at entries of deltas
+    void applyCapacityDeltas(Map<Long, Long> deltas);
+
+    // Sets leftCapacity to 0 and returns what it was, or null if the event does not exist
+    Long takeLeftCapacity(Long eventId);
+
+    // Marks the event as sharded across shards CapacityShard documents
+    void setCapacityShards(Long eventId, int shards);
+}
@@ -0,0 +1,105 @@
+package com.erez.ticketbot.inventoryservice.repository;
+
+import com.erez.ticketbot.inventoryservice.dto.CapacityUpdateResult;
+import com.erez.ticketbot.inventoryservice.entity.Event;
+import org.springframework.data.mongodb.core.BulkOperations;
+import org.springframework.data.mongodb.core.FindAndModifyOptions;
+import org.springframework.data.mongodb.core.MongoTemplate;
+import org.springframework.data.mongodb.core.query.Criteria;
+import org.springframework.data.mongodb.core.query.Query;
+import org.springframework.data.mongodb.core.query.Update;
+
+import java.util.Map;
+
+/**
+ * MongoTemplate backed fragment of EventRepository
+ */
+public class EventCapacityOperationsImpl implements EventCapacityOperations {
+
+    private static final String ID = "id";
+    private static final String LEFT_CAPACITY = "leftCapacity";
+    private static final String CAPACITY_SHARDS = "capacityShards";
+
+    private final MongoTemplate mongoTemplate;
+
+    public EventCapacityOperationsImpl(MongoTemplate mongoTemplate) {
+        this.mongoTemplate = mongoTemplate;
+    }
+
+    @Override
+    public CapacityUpdateResult reserveCapacity(Long eventId, long tickets) {
+        Query query = new Query(Criteria.where(ID).is(eventId).and(LEFT_CAPACITY).gte(tickets));
+        Event updated = incrementLeftCapacity(query, -tickets);
+        if (updated != null) {
+            return CapacityUpdateResult.updated(updated.getLeftCapacity());
+        }
+
+        // Miss path only: tell "sold out" apart from "no such event"
+        Event current = findLeftCapacity(eventId);
+        return current == null
+                ? CapacityUpdateResult.notFound()
+                : CapacityUpdateResult.insufficient(current.getLeftCapacity());
+    }
+
+    @Override
+    public CapacityUpdateResult releaseCapacity(Long eventId, long tickets) {
+        Event updated = incrementLeftCapacity(new Query(Criteria.where(ID).is(eventId)), tickets);
+        return updated != null
+                ? CapacityUpdateResult.updated(updated.getLeftCapacity())
+                : CapacityUpdateResult.notFound();
+    }
+
+    @Override
+    public void setLeftCapacity(Long eventId, long leftCapacity) {
+        mongoTemplate.updateFirst(new Query(Criteria.where(ID).is(eventId)),
+                new Update().set(LEFT_CAPACITY, leftCapacity), Event.class);
+    }
+
+    @Override
+    public boolean replaceLeftCapacity(Long eventId, long observed, long leftCapacity) {
+        return mongoTemplate.updateFirst(new Query(Criteria.where(ID).is(eventId).and(LEFT_CAPACITY).is(observed)),
+                new Update().set(LEFT_CAPACITY, leftCapacity), Event.class).getModifiedCount() > 0;
+    }
+
+    @Override
+    public void applyCapacityDeltas(Map<Long, Long> deltas) {
+        if (deltas.isEmpty()) {
+            return;
+        }
+        BulkOperations bulk = mongoTemplate.bulkOps(BulkOperations.BulkMode.UNORDERED, Event.class);
+        deltas.forEach((eventId, delta) -> bulk.updateOne(
+                new Query(Criteria.where(ID).is(eventId)), new Update().inc(LEFT_CAPACITY, delta)));
+        bulk.execute();
+    }
+
+    @Override
+    public Long takeLeftCapacity(Long eventId) {
+        Query query = new Query(Criteria.where(ID).is(eventId));
+        query.fields().include(LEFT_CAPACITY);
+        Event previous = mongoTemplate.findAndModify(query,
+                new Update().set(LEFT_CAPACITY, 0L),
+                FindAndModifyOptions.options().returnNew(false),
+                Event.class);
+        return previous == null ? null : previous.getLeftCapacity();
+    }
+
+    @Override
+    public void setCapacityShards(Long eventId, int shards) {
+        mongoTemplate.updateFirst(new Query(Criteria.where(ID).is(eventId)),
+                new Update().set(CAPACITY_SHARDS, shards), Event.class);
+    }
+
+    private Event incrementLeftCapacity(Query query, long delta) {
+        query.fields().include(LEFT_CAPACITY);
+        return mongoTemplate.findAndModify(query,
+                new Update().inc(LEFT_CAPACITY, delta),
+                FindAndModifyOptions.options().returnNew(true),
+                Event.class);
+    }
+
+    private Event findLeftCapacity(Long eventId) {
+        Query query = new Query(Criteria.where(ID).is(eventId));
+        query.fields().include(LEFT_CAPACITY);
+        return mongoTemplate.findOne(query, Event.class);
+    }
+}
@@ -0,0 +1,29 @@
+package com.erez.ticketbot.inventoryservice.repository;
+
+import com.erez.ticketbot.inventoryservice.entity.Event;
+
+import java.util.List;
+import java.util.Optional;
+import java.util.stream.Stream;
+
+/**
+ * Catalog reads that only fetch the fields the inventory responses need
+ */
+public interface EventQueryOperations {
+
+    // Keyset page ordered by id: events with id > afterId (all when null), at most limit of them
+    List<Event> findInventoryPage(Long afterId, int limit);
+
+    // Cursor-backed stream over all events ordered by id; the caller must close it
+    Stream<Event> streamInventory();
+
+    // Full documents with fromId <= id <= toId ordered by id, cursor-backed; the caller must close it
+    Stream<Event> streamRange(long fromId, long toId);
+
+    // Only id, totalCapacity, leftCapacity and capacityShards, fromId <= id <= toId ordered by id; the caller must close it
+    Stream<Event> streamCapacityRange(long fromId, long toId);
+
+    Optional<Long> findMinId();
+
+    Optional<Long> findMaxId();
+}
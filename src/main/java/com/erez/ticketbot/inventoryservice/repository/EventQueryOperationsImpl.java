@@ -0,0 +1,78 @@
+package com.erez.ticketbot.inventoryservice.repository;
+
+import com.erez.ticketbot.inventoryservice.entity.Event;
+import org.springframework.data.domain.Sort;
+import org.springframework.data.mongodb.core.MongoTemplate;
+import org.springframework.data.mongodb.core.query.Criteria;
+import org.springframework.data.mongodb.core.query.Query;
+
+import java.util.List;
+import java.util.Optional;
+import java.util.stream.Stream;
+
+/**
+ * MongoTemplate backed fragment of EventRepository
+ */
+public class EventQueryOperationsImpl implements EventQueryOperations {
+
+    private static final int CURSOR_BATCH_SIZE = 500;
+
+    private final MongoTemplate mongoTemplate;
+
+    public EventQueryOperationsImpl(MongoTemplate mongoTemplate) {
+        this.mongoTemplate = mongoTemplate;
+    }
+
+    @Override
+    public List<Event> findInventoryPage(Long afterId, int limit) {
+        Query query = afterId == null
+                ? new Query()
+                : new Query(Criteria.where("id").gt(afterId));
+        return mongoTemplate.find(inventoryProjection(query).limit(limit), Event.class);
+    }
+
+    @Override
+    public Stream<Event> streamInventory() {
+        return mongoTemplate.stream(inventoryProjection(new Query()).cursorBatchSize(CURSOR_BATCH_SIZE), Event.class);
+    }
+
+    @Override
+    public Stream<Event> streamRange(long fromId, long toId) {
+        Query query = new Query(Criteria.where("id").gte(fromId).lte(toId))
+                .with(Sort.by(Sort.Direction.ASC, "id"))
+                .cursorBatchSize(CURSOR_BATCH_SIZE);
+        return mongoTemplate.stream(query, Event.class);
+    }
+
+    @Override
+    public Stream<Event> streamCapacityRange(long fromId, long toId) {
+        Query query = new Query(Criteria.where("id").gte(fromId).lte(toId))
+                .with(Sort.by(Sort.Direction.ASC, "id"))
+                .cursorBatchSize(CURSOR_BATCH_SIZE);
+        query.fields().include("id", "totalCapacity", "leftCapacity", "capacityShards").exclude("_id");
+        return mongoTemplate.stream(query, Event.class);
+    }
+
+    @Override
+    public Optional<Long> findMinId() {
+        return boundaryId(Sort.Direction.ASC);
+    }
+
+    @Override
+    public Optional<Long> findMaxId() {
+        return boundaryId(Sort.Direction.DESC);
+    }
+
+    private Optional<Long> boundaryId(Sort.Direction direction) {
+        Query query = new Query().with(Sort.by(direction, "id")).limit(1);
+        query.fields().include("id").exclude("_id");
+        return Optional.ofNullable(mongoTemplate.findOne(query, Event.class)).map(Event::getId);
+    }
+
+    // Uses the unique id index for both the range and the sort
+    private static Query inventoryProjection(Query query) {
+        query.with(Sort.by(Sort.Direction.ASC, "id"));
+        query.fields().include("id", "name", "leftCapacity", "ticketPrice", "venue").exclude("_id");
+        return query;
+    }
+}
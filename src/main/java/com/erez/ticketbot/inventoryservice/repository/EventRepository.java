@@ -9,9 +9,11 @@ import java.util.Optional;
 /**
  * MongoDB Repository for Event documents
  * Replaces JPA EventRepository with MongoDB operations
+ * Capacity changes go through the atomic EventCapacityOperations fragment
  */
 @Repository
-public interface EventRepository extends MongoRepository<Event, String> {
+public interface EventRepository extends MongoRepository<Event, String>, EventCapacityOperations,
+        EventQueryOperations {
 
 
     Optional<Event> findById(Long id);
@@ -0,0 +1,15 @@
+package com.erez.ticketbot.inventoryservice.repository;
+
+import com.erez.ticketbot.inventoryservice.entity.OutboxMessage;
+import org.springframework.data.domain.Limit;
+import org.springframework.data.mongodb.repository.MongoRepository;
+import org.springframework.stereotype.Repository;
+
+import java.util.List;
+
+@Repository
+public interface OutboxRepository extends MongoRepository<OutboxMessage, String> {
+
+    // ObjectId order is insertion order, close enough to commit order for the relay
+    List<OutboxMessage> findAllByOrderByIdAsc(Limit limit);
+}
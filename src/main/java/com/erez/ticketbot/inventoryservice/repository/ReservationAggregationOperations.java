@@ -0,0 +1,22 @@
+package com.erez.ticketbot.inventoryservice.repository;
+
+import com.erez.ticketbot.inventoryservice.entity.Reservation;
+
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Server-side aggregations over the reservations collection
+ */
+public interface ReservationAggregationOperations {
+
+    // eventId -> sum of ticketCount for reservations in the given statuses, one pipeline for all events
+    Map<Long, Long> sumTicketsByEvent(List<Reservation.ReservationStatus> statuses);
+
+    // True when a TTL index can delete RESERVED or CONFIRMED reservations, which makes the sums above undercount
+    boolean expiresHeldReservations();
+
+    // eventId -> status -> sum of ticketCount, grouped by eventId and status in one pipeline
+    Map<Long, Map<Reservation.ReservationStatus, Long>> sumTicketsByEventAndStatus(
+            List<Reservation.ReservationStatus> statuses);
+}
@@ -0,0 +1,80 @@
+package com.erez.ticketbot.inventoryservice.repository;
+
+import com.erez.ticketbot.inventoryservice.entity.Reservation;
+import org.bson.Document;
+import org.springframework.data.mongodb.core.MongoTemplate;
+import org.springframework.data.mongodb.core.aggregation.Aggregation;
+import org.springframework.data.mongodb.core.index.IndexInfo;
+import org.springframework.data.mongodb.core.query.Criteria;
+
+import java.util.EnumMap;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * MongoTemplate backed fragment of ReservationRepository
+ */
+public class ReservationAggregationOperationsImpl implements ReservationAggregationOperations {
+
+    private final MongoTemplate mongoTemplate;
+
+    public ReservationAggregationOperationsImpl(MongoTemplate mongoTemplate) {
+        this.mongoTemplate = mongoTemplate;
+    }
+
+    @Override
+    public Map<Long, Long> sumTicketsByEvent(List<Reservation.ReservationStatus> statuses) {
+        Aggregation aggregation = Aggregation.newAggregation(
+                Aggregation.match(Criteria.where("status").in(statuses)),
+                Aggregation.group("eventId").sum("ticketCount").as("tickets"));
+
+        Map<Long, Long> totals = new HashMap<>();
+        for (Document row : mongoTemplate.aggregate(aggregation, Reservation.class, Document.class)) {
+            Number eventId = (Number) row.get("_id");
+            Number tickets = (Number) row.get("tickets");
+            if (eventId != null) {
+                totals.put(eventId.longValue(), tickets == null ? 0L : tickets.longValue());
+            }
+        }
+        return totals;
+    }
+
+    // A TTL index is only safe when a partial filter keeps it off the ticket-holding statuses
+    @Override
+    public boolean expiresHeldReservations() {
+        for (IndexInfo index : mongoTemplate.indexOps(Reservation.class).getIndexInfo()) {
+            if (index.getExpireAfter().isEmpty()) {
+                continue;
+            }
+            String filter = index.getPartialFilterExpression();
+            if (filter == null
+                    || filter.contains(Reservation.ReservationStatus.RESERVED.name())
+                    || filter.contains(Reservation.ReservationStatus.CONFIRMED.name())) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    @Override
+    public Map<Long, Map<Reservation.ReservationStatus, Long>> sumTicketsByEventAndStatus(
+            List<Reservation.ReservationStatus> statuses) {
+        Aggregation aggregation = Aggregation.newAggregation(
+                Aggregation.match(Criteria.where("status").in(statuses)),
+                Aggregation.group("eventId", "status").sum("ticketCount").as("tickets"));
+
+        Map<Long, Map<Reservation.ReservationStatus, Long>> totals = new HashMap<>();
+        for (Document row : mongoTemplate.aggregate(aggregation, Reservation.class, Document.class)) {
+            Document key = row.get("_id", Document.class);
+            Number eventId = key == null ? null : (Number) key.get("eventId");
+            String status = key == null ? null : key.getString("status");
+            Number tickets = (Number) row.get("tickets");
+            if (eventId != null && status != null) {
+                totals.computeIfAbsent(eventId.longValue(), id -> new EnumMap<>(Reservation.ReservationStatus.class))
+                        .put(Reservation.ReservationStatus.valueOf(status), tickets == null ? 0L : tickets.longValue());
+            }
+        }
+        return totals;
+    }
+}
@@ -1,6 +1,7 @@
 package com.erez.ticketbot.inventoryservice.repository;
 
 import com.erez.ticketbot.inventoryservice.entity.Reservation;
+import org.springframework.data.domain.Limit;
 import org.springframework.data.mongodb.repository.MongoRepository;
 import org.springframework.data.mongodb.repository.Query;
 import org.springframework.stereotype.Repository;
@@ -8,9 +9,11 @@ import org.springframework.stereotype.Repository;
 import java.time.LocalDateTime;
 import java.util.List;
 import java.util.Optional;
+import java.util.stream.Stream;
 
 @Repository
-public interface ReservationRepository extends MongoRepository<Reservation, String> {
+public interface ReservationRepository extends MongoRepository<Reservation, String>, ReservationAggregationOperations,
+        ReservationStatusOperations {
 
     Optional<Reservation> findByTransactionId(String transactionId);
     boolean existsByTransactionId(String transactionId);
@@ -26,10 +29,27 @@ public interface ReservationRepository extends MongoRepository<Reservation, Stri
     @Query("{ 'createdAt': { $lt: ?0 }, 'status': { $in: ?1 } }")
     List<Reservation> findOldTerminalReservations(LocalDateTime dateTime,List<Reservation.ReservationStatus> statuses);
 
+    // Same criteria, ids only, one bounded chunk at a time
+    @Query(value = "{ 'createdAt': { $lt: ?0 }, 'status': { $in: ?1 } }", fields = "{ '_id': 1 }")
+    List<Reservation> findOldTerminalReservationIds(LocalDateTime dateTime, List<Reservation.ReservationStatus> statuses, Limit limit);
+
+    // Terminal reservations to move into the archive, oldest first, one segment at a time
+    @Query(value = "{ 'createdAt': { $lt: ?0 }, 'status': { $in: ?1 } }", sort = "{ 'createdAt': 1 }")
+    List<Reservation> findTerminalReservationsForArchive(LocalDateTime dateTime, List<Reservation.ReservationStatus> statuses, Limit limit);
+
     // status typically RESERVED
     @Query("{ 'createdAt': { $lt: ?0 }, 'status': ?1 }")
     List<Reservation> findStuckReservations(LocalDateTime dateTime, Reservation.ReservationStatus status);
 
+    // Oldest first, one bounded chunk at a time
+    @Query(value = "{ 'createdAt': { $lt: ?0 }, 'status': ?1 }", sort = "{ 'createdAt': 1 }")
+    List<Reservation> findStuckReservations(LocalDateTime dateTime, Reservation.ReservationStatus status, Limit limit);
+
+    // Held RESERVED reservations, only the fields the hold wheel needs
+    @Query(value = "{ 'status': 'RESERVED', 'holdExpiresAt': { $ne: null } }",
+            fields = "{ '_id': 1, 'eventId': 1, 'holdExpiresAt': 1 }")
+    Stream<Reservation> streamHeldReservations();
+
     long countByStatus(Reservation.ReservationStatus status);
     long countByEventId(Long eventId);
     default long countActiveReservations() {
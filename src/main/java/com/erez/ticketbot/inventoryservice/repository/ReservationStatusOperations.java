@@ -0,0 +1,14 @@
+package com.erez.ticketbot.inventoryservice.repository;
+
+import com.erez.ticketbot.inventoryservice.entity.Reservation;
+
+import java.util.Collection;
+
+/**
+ * Bulk status transitions on reservations
+ */
+public interface ReservationStatusOperations {
+
+    // Moves the given reservations from one status to another in one updateMany; returns how many matched "from"
+    long transitionStatus(Collection<String> ids, Reservation.ReservationStatus from, Reservation.ReservationStatus to);
+}
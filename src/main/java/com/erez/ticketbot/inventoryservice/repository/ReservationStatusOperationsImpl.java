@@ -0,0 +1,29 @@
+package com.erez.ticketbot.inventoryservice.repository;
+
+import com.erez.ticketbot.inventoryservice.entity.Reservation;
+import org.springframework.data.mongodb.core.MongoTemplate;
+import org.springframework.data.mongodb.core.query.Criteria;
+import org.springframework.data.mongodb.core.query.Query;
+import org.springframework.data.mongodb.core.query.Update;
+
+import java.util.Collection;
+
+/**
+ * MongoTemplate backed fragment of ReservationRepository
+ */
+public class ReservationStatusOperationsImpl implements ReservationStatusOperations {
+
+    private final MongoTemplate mongoTemplate;
+
+    public ReservationStatusOperationsImpl(MongoTemplate mongoTemplate) {
+        this.mongoTemplate = mongoTemplate;
+    }
+
+    @Override
+    public long transitionStatus(Collection<String> ids, Reservation.ReservationStatus from,
+                                 Reservation.ReservationStatus to) {
+        Query query = new Query(Criteria.where("_id").in(ids).and("status").is(from));
+        return mongoTemplate.updateMulti(query, new Update().set("status", to), Reservation.class)
+                .getMatchedCount();
+    }
+}
@@ -0,0 +1,22 @@
+package com.erez.ticketbot.inventoryservice.repository;
+
+import com.erez.ticketbot.inventoryservice.entity.Venue;
+
+import java.util.Map;
+
+/**
+ * Atomic seat bitmap updates on SeatMap documents.
+ * Claims and releases are single updates guarded with $bitsAllClear / $bitsAllSet on every
+ * touched word, so two claims for overlapping seats can never both succeed.
+ */
+public interface SeatMapOperations {
+
+    // Creates the empty seat map for a section unless it already exists
+    void ensureSeatMap(Long eventId, Venue.Section section);
+
+    // Sets the bits in wordIndex -> mask only if all of them are clear; false if any seat was taken
+    boolean claimSeats(Long eventId, String sectionId, Map<Integer, Long> wordMasks, int seatCount);
+
+    // Clears the bits in wordIndex -> mask only if all of them are set; false if any seat was not taken
+    boolean releaseSeats(Long eventId, String sectionId, Map<Integer, Long> wordMasks, int seatCount);
+}
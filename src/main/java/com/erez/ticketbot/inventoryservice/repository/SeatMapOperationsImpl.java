@@ -0,0 +1,78 @@
+package com.erez.ticketbot.inventoryservice.repository;
+
+import com.erez.ticketbot.inventoryservice.entity.SeatMap;
+import com.erez.ticketbot.inventoryservice.entity.Venue;
+import org.springframework.data.mongodb.core.MongoTemplate;
+import org.springframework.data.mongodb.core.query.Criteria;
+import org.springframework.data.mongodb.core.query.Query;
+import org.springframework.data.mongodb.core.query.Update;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * MongoTemplate backed fragment of SeatMapRepository
+ */
+public class SeatMapOperationsImpl implements SeatMapOperations {
+
+    private static final String EVENT_ID = "eventId";
+    private static final String SECTION_ID = "sectionId";
+    private static final String TAKEN = "taken";
+    private static final String AVAILABLE = "available";
+
+    private final MongoTemplate mongoTemplate;
+
+    public SeatMapOperationsImpl(MongoTemplate mongoTemplate) {
+        this.mongoTemplate = mongoTemplate;
+    }
+
+    @Override
+    public void ensureSeatMap(Long eventId, Venue.Section section) {
+        int seats = section.getRows() * section.getSeatsPerRow();
+        mongoTemplate.upsert(sectionQuery(eventId, section.getId()),
+                new Update()
+                        .setOnInsert("rows", section.getRows())
+                        .setOnInsert("seatsPerRow", section.getSeatsPerRow())
+                        .setOnInsert(TAKEN, Collections.nCopies((seats + 63) / 64, 0L))
+                        .setOnInsert(AVAILABLE, (long) seats),
+                SeatMap.class);
+    }
+
+    @Override
+    public boolean claimSeats(Long eventId, String sectionId, Map<Integer, Long> wordMasks, int seatCount) {
+        Query query = sectionQuery(eventId, sectionId);
+        Update update = new Update().inc(AVAILABLE, -seatCount);
+        wordMasks.forEach((word, mask) -> {
+            query.addCriteria(Criteria.where(TAKEN + "." + word).bits().allClear(bitPositions(mask)));
+            update.bitwise(TAKEN + "." + word).or(mask);
+        });
+        return mongoTemplate.updateFirst(query, update, SeatMap.class).getModifiedCount() == 1;
+    }
+
+    @Override
+    public boolean releaseSeats(Long eventId, String sectionId, Map<Integer, Long> wordMasks, int seatCount) {
+        Query query = sectionQuery(eventId, sectionId);
+        Update update = new Update().inc(AVAILABLE, seatCount);
+        wordMasks.forEach((word, mask) -> {
+            query.addCriteria(Criteria.where(TAKEN + "." + word).bits().allSet(bitPositions(mask)));
+            update.bitwise(TAKEN + "." + word).and(~mask);
+        });
+        return mongoTemplate.updateFirst(query, update, SeatMap.class).getModifiedCount() == 1;
+    }
+
+    private static Query sectionQuery(Long eventId, String sectionId) {
+        return new Query(Criteria.where(EVENT_ID).is(eventId).and(SECTION_ID).is(sectionId));
+    }
+
+    // Position lists, since a numeric $bitsAllClear mask is limited to non-negative 32-bit values
+    private static List<Integer> bitPositions(long mask) {
+        List<Integer> positions = new ArrayList<>(Long.bitCount(mask));
+        while (mask != 0) {
+            positions.add(Long.numberOfTrailingZeros(mask));
+            mask &= mask - 1;
+        }
+        return positions;
+    }
+}
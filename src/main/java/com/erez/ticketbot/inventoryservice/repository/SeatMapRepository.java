@@ -0,0 +1,16 @@
+package com.erez.ticketbot.inventoryservice.repository;
+
+import com.erez.ticketbot.inventoryservice.entity.SeatMap;
+import org.springframework.data.mongodb.repository.MongoRepository;
+import org.springframework.stereotype.Repository;
+
+import java.util.List;
+import java.util.Optional;
+
+@Repository
+public interface SeatMapRepository extends MongoRepository<SeatMap, String>, SeatMapOperations {
+
+    Optional<SeatMap> findByEventIdAndSectionId(Long eventId, String sectionId);
+
+    List<SeatMap> findByEventId(Long eventId);
+}
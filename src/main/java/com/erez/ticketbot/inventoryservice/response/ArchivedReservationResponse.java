@@ -0,0 +1,27 @@
+package com.erez.ticketbot.inventoryservice.response;
+
+import com.erez.ticketbot.inventoryservice.entity.Reservation;
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.time.LocalDateTime;
+import java.util.List;
+
+@Data
+@Builder
+@NoArgsConstructor
+@AllArgsConstructor
+public class ArchivedReservationResponse {
+    private String transactionId;
+    private Long eventId;
+    private Long userId;
+    private Long ticketCount;
+    private Reservation.ReservationStatus status;
+    private LocalDateTime createdAt;
+    private String errorMessage;
+    // Assigned seating only
+    private String sectionId;
+    private List<Integer> seats;
+}
@@ -0,0 +1,39 @@
+package com.erez.ticketbot.inventoryservice.response;
+
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.util.List;
+
+@Data
+@Builder
+@NoArgsConstructor
+@AllArgsConstructor
+public class BatchReservationResponse {
+    private int reserved;
+    private int failed;
+    private int duplicates;
+    // One per request item, in request order
+    private List<ItemResult> results;
+
+    public enum Outcome {
+        RESERVED,
+        FAILED,
+        // Transaction already processed, by an earlier call, a Kafka booking or earlier in this request
+        DUPLICATE
+    }
+
+    @Data
+    @Builder
+    @NoArgsConstructor
+    @AllArgsConstructor
+    public static class ItemResult {
+        private String transactionId;
+        private Long eventId;
+        private Long ticketCount;
+        private Outcome outcome;
+        private String errorMessage;
+    }
+}
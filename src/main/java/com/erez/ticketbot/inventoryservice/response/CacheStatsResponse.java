@@ -0,0 +1,19 @@
+package com.erez.ticketbot.inventoryservice.response;
+
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+@Data
+@Builder
+@NoArgsConstructor
+@AllArgsConstructor
+public class CacheStatsResponse {
+    private String cache;
+    private Long size;
+    private Long hits;
+    private Long misses;
+    private Long evictions;
+    private Double hitRate;
+}
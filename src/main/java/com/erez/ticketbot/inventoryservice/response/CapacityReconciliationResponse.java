@@ -0,0 +1,40 @@
+package com.erez.ticketbot.inventoryservice.response;
+
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.util.List;
+
+@Data
+@Builder
+@NoArgsConstructor
+@AllArgsConstructor
+public class CapacityReconciliationResponse {
+    private long eventsChecked;
+    private int repaired;
+    private long durationMs;
+    // Run skipped: a TTL index can delete ticket-holding reservations, so their sums are not reliable
+    private boolean heldReservationsExpire;
+    // Ordered by eventId
+    private List<Discrepancy> discrepancies;
+
+    @Data
+    @Builder
+    @NoArgsConstructor
+    @AllArgsConstructor
+    public static class Discrepancy {
+        private Long eventId;
+        private Long totalCapacity;
+        private Long leftCapacity;
+        // totalCapacity - reservedTickets - confirmedTickets
+        private Long expectedLeftCapacity;
+        private Long reservedTickets;
+        // Including CONFIRMED tickets moved to the reservation archive
+        private Long confirmedTickets;
+        // Same values seen by the previous run, so not a booking caught between the two reads
+        private boolean confirmed;
+        private boolean repaired;
+    }
+}
@@ -0,0 +1,15 @@
+package com.erez.ticketbot.inventoryservice.response;
+
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+@Data
+@Builder
+@NoArgsConstructor
+@AllArgsConstructor
+public class CapacityUpdateResponse {
+    private Long eventId;
+    private Long leftCapacity;
+}
@@ -0,0 +1,18 @@
+package com.erez.ticketbot.inventoryservice.response;
+
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.util.List;
+
+@Data
+@Builder
+@NoArgsConstructor
+@AllArgsConstructor
+public class EventPageResponse {
+    private List<EventInventoryResponse> events;
+    // Pass as "after" to get the next page; null on the last page
+    private Long nextCursor;
+}
@@ -0,0 +1,21 @@
+package com.erez.ticketbot.inventoryservice.response;
+
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.util.List;
+
+@Data
+@Builder
+@NoArgsConstructor
+@AllArgsConstructor
+public class SeatReservationResponse {
+    private String transactionId;
+    private Long eventId;
+    private String sectionId;
+    private List<Integer> seats;
+    // Null when the transaction had already been reserved
+    private Long leftCapacity;
+}
@@ -0,0 +1,21 @@
+package com.erez.ticketbot.inventoryservice.response;
+
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.util.List;
+
+@Data
+@Builder
+@NoArgsConstructor
+@AllArgsConstructor
+public class SectionAvailabilityResponse {
+    private String sectionId;
+    private Integer rows;
+    private Integer seatsPerRow;
+    private Long available;
+    // Seat bitmap: seat i is taken when bit i % 64 of taken[i / 64] is set
+    private List<Long> taken;
+}
@@ -0,0 +1,478 @@
+package com.erez.ticketbot.inventoryservice.service;
+
+import com.erez.ticketbot.inventoryservice.entity.Reservation;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.time.LocalDateTime;
+import java.time.ZoneOffset;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+import java.util.zip.CRC32;
+import java.util.zip.DataFormatException;
+import java.util.zip.Deflater;
+import java.util.zip.Inflater;
+
+/**
+ * One immutable, memory-mapped file of archived reservations.
+ * Layout: header, deflated data blocks of up to blockRecords reservations ordered by eventId then
+ * createdAt, deflated transactionId index blocks (transactionId -> data block, sorted), the footer
+ * and a fixed-size trailer pointing at it. The footer holds the sparse indexes kept in memory:
+ * eventId range and position of every data block, first transactionId and position of every
+ * index block, a Bloom filter over all transactionIds and the CONFIRMED tickets per event.
+ * A transactionId lookup costs a filter probe and, on a hit, two block inflates; an eventId lookup
+ * inflates only the blocks whose range covers the event.
+ */
+final class ArchiveSegment {
+
+    private static final int MAGIC = 0x52534731;
+    private static final byte VERSION = 1;
+    private static final int HEADER_BYTES = 5;
+    private static final int TRAILER_BYTES = 20;
+
+    private final Path path;
+    private final MappedByteBuffer buffer;
+    private final int recordCount;
+    private final long[] blockOffsets;
+    private final int[] blockLengths;
+    private final int[] blockRawLengths;
+    private final long[] blockFirstEventIds;
+    private final long[] blockLastEventIds;
+    private final String[] indexFirstTransactionIds;
+    private final long[] indexOffsets;
+    private final int[] indexLengths;
+    private final int[] indexRawLengths;
+    private final TransactionIdFilter transactionIds;
+    private final Map<Long, Long> confirmedTickets;
+
+    private ArchiveSegment(Path path, MappedByteBuffer buffer, DataInputStream footer) throws IOException {
+        this.path = path;
+        this.buffer = buffer;
+        this.recordCount = footer.readInt();
+
+        int blocks = footer.readInt();
+        this.blockOffsets = new long[blocks];
+        this.blockLengths = new int[blocks];
+        this.blockRawLengths = new int[blocks];
+        this.blockFirstEventIds = new long[blocks];
+        this.blockLastEventIds = new long[blocks];
+        for (int i = 0; i < blocks; i++) {
+            blockOffsets[i] = footer.readLong();
+            blockLengths[i] = footer.readInt();
+            blockRawLengths[i] = footer.readInt();
+            blockFirstEventIds[i] = footer.readLong();
+            blockLastEventIds[i] = footer.readLong();
+        }
+
+        int indexBlocks = footer.readInt();
+        this.indexFirstTransactionIds = new String[indexBlocks];
+        this.indexOffsets = new long[indexBlocks];
+        this.indexLengths = new int[indexBlocks];
+        this.indexRawLengths = new int[indexBlocks];
+        for (int i = 0; i < indexBlocks; i++) {
+            indexFirstTransactionIds[i] = readString(footer);
+            indexOffsets[i] = footer.readLong();
+            indexLengths[i] = footer.readInt();
+            indexRawLengths[i] = footer.readInt();
+        }
+
+        int hashCount = footer.readInt();
+        long[] words = new long[footer.readInt()];
+        for (int i = 0; i < words.length; i++) {
+            words[i] = footer.readLong();
+        }
+        this.transactionIds = new TransactionIdFilter(words, hashCount);
+
+        int events = footer.readInt();
+        this.confirmedTickets = new HashMap<>(events * 2);
+        for (int i = 0; i < events; i++) {
+            confirmedTickets.put(footer.readLong(), footer.readLong());
+        }
+    }
+
+    /**
+     * Writes reservations to a new segment at target: a temporary file, forced to disk,
+     * then moved into place, so a segment file either exists complete or not at all.
+     */
+    static void write(Path target, List<Reservation> reservations, int blockRecords) throws IOException {
+        List<Reservation> records = new ArrayList<>(reservations);
+        records.sort(Comparator.comparing(Reservation::getEventId, Comparator.nullsFirst(Comparator.naturalOrder()))
+                .thenComparing(Reservation::getCreatedAt, Comparator.nullsFirst(Comparator.naturalOrder())));
+
+        ByteArrayOutputStream footerBytes = new ByteArrayOutputStream();
+        DataOutputStream footer = new DataOutputStream(footerBytes);
+        List<IndexEntry> index = new ArrayList<>(records.size());
+        TransactionIdFilter filter = new TransactionIdFilter(Math.max(1, records.size()), 0.01);
+        Map<Long, Long> confirmed = new HashMap<>();
+
+        Path temporary = target.resolveSibling(target.getFileName() + ".tmp");
+        try (FileChannel out = FileChannel.open(temporary, StandardOpenOption.CREATE,
+                StandardOpenOption.TRUNCATE_EXISTING, StandardOpenOption.WRITE)) {
+            write(out, ByteBuffer.allocate(HEADER_BYTES).putInt(MAGIC).put(VERSION).flip());
+
+            footer.writeInt(records.size());
+            int blocks = (records.size() + blockRecords - 1) / blockRecords;
+            footer.writeInt(blocks);
+            for (int block = 0; block < blocks; block++) {
+                List<Reservation> chunk = records.subList(block * blockRecords,
+                        Math.min((block + 1) * blockRecords, records.size()));
+                ByteArrayOutputStream raw = new ByteArrayOutputStream(chunk.size() * 128);
+                DataOutputStream data = new DataOutputStream(raw);
+                data.writeInt(chunk.size());
+                for (Reservation reservation : chunk) {
+                    writeRecord(data, reservation);
+                    if (reservation.getTransactionId() != null) {
+                        index.add(new IndexEntry(reservation.getTransactionId(), block));
+                        filter.add(reservation.getTransactionId());
+                    }
+                    if (reservation.getStatus() == Reservation.ReservationStatus.CONFIRMED
+                            && reservation.getEventId() != null && reservation.getTicketCount() != null) {
+                        confirmed.merge(reservation.getEventId(), reservation.getTicketCount(), Long::sum);
+                    }
+                }
+                byte[] compressed = deflate(raw.toByteArray());
+                footer.writeLong(out.position());
+                footer.writeInt(compressed.length);
+                footer.writeInt(raw.size());
+                footer.writeLong(eventKey(chunk.get(0)));
+                footer.writeLong(eventKey(chunk.get(chunk.size() - 1)));
+                write(out, ByteBuffer.wrap(compressed));
+            }
+
+            index.sort(Comparator.comparing(IndexEntry::transactionId));
+            int indexBlocks = (index.size() + blockRecords - 1) / blockRecords;
+            footer.writeInt(indexBlocks);
+            for (int block = 0; block < indexBlocks; block++) {
+                List<IndexEntry> chunk = index.subList(block * blockRecords,
+                        Math.min((block + 1) * blockRecords, index.size()));
+                ByteArrayOutputStream raw = new ByteArrayOutputStream(chunk.size() * 48);
+                DataOutputStream data = new DataOutputStream(raw);
+                data.writeInt(chunk.size());
+                for (IndexEntry entry : chunk) {
+                    writeString(data, entry.transactionId());
+                    data.writeInt(entry.block());
+                }
+                byte[] compressed = deflate(raw.toByteArray());
+                writeString(footer, chunk.get(0).transactionId());
+                footer.writeLong(out.position());
+                footer.writeInt(compressed.length);
+                footer.writeInt(raw.size());
+                write(out, ByteBuffer.wrap(compressed));
+            }
+
+            long[] words = filter.words();
+            footer.writeInt(filter.hashCount());
+            footer.writeInt(words.length);
+            for (long word : words) {
+                footer.writeLong(word);
+            }
+            footer.writeInt(confirmed.size());
+            for (Map.Entry<Long, Long> event : confirmed.entrySet()) {
+                footer.writeLong(event.getKey());
+                footer.writeLong(event.getValue());
+            }
+
+            byte[] footerData = footerBytes.toByteArray();
+            CRC32 crc = new CRC32();
+            crc.update(footerData);
+            long footerOffset = out.position();
+            write(out, ByteBuffer.wrap(footerData));
+            write(out, ByteBuffer.allocate(TRAILER_BYTES)
+                    .putLong(footerOffset).putInt(footerData.length).putInt((int) crc.getValue()).putInt(MAGIC).flip());
+            out.force(true);
+        }
+        Files.move(temporary, target, StandardCopyOption.ATOMIC_MOVE);
+    }
+
+    /**
+     * Maps a segment written by write() and loads its footer. The mapping outlives the channel.
+     */
+    static ArchiveSegment open(Path path) throws IOException {
+        MappedByteBuffer buffer;
+        try (FileChannel channel = FileChannel.open(path, StandardOpenOption.READ)) {
+            buffer = channel.map(FileChannel.MapMode.READ_ONLY, 0, channel.size());
+        }
+        int size = buffer.capacity();
+        if (size < HEADER_BYTES + TRAILER_BYTES || buffer.getInt(0) != MAGIC || buffer.get(4) != VERSION
+                || buffer.getInt(size - 4) != MAGIC) {
+            throw new IOException("Not a reservation archive segment: " + path);
+        }
+        long footerOffset = buffer.getLong(size - TRAILER_BYTES);
+        int footerLength = buffer.getInt(size - TRAILER_BYTES + 8);
+        int footerCrc = buffer.getInt(size - TRAILER_BYTES + 12);
+        if (footerOffset < HEADER_BYTES || footerOffset + footerLength != size - TRAILER_BYTES) {
+            throw new IOException("Corrupt archive segment trailer: " + path);
+        }
+
+        byte[] footer = new byte[footerLength];
+        buffer.get((int) footerOffset, footer);
+        CRC32 crc = new CRC32();
+        crc.update(footer);
+        if ((int) crc.getValue() != footerCrc) {
+            throw new IOException("Corrupt archive segment footer: " + path);
+        }
+        return new ArchiveSegment(path, buffer, new DataInputStream(new ByteArrayInputStream(footer)));
+    }
+
+    Reservation findByTransactionId(String transactionId) throws IOException {
+        if (!transactionIds.mightContain(transactionId)) {
+            return null;
+        }
+        int indexBlock = floor(indexFirstTransactionIds, transactionId);
+        if (indexBlock < 0) {
+            return null;
+        }
+
+        DataInputStream entries = inflate(indexOffsets[indexBlock], indexLengths[indexBlock], indexRawLengths[indexBlock]);
+        int block = -1;
+        for (int i = entries.readInt(); i > 0; i--) {
+            int order = readString(entries).compareTo(transactionId);
+            int entryBlock = entries.readInt();
+            if (order == 0) {
+                block = entryBlock;
+                break;
+            }
+            if (order > 0) {
+                break;
+            }
+        }
+        if (block < 0) {
+            return null;
+        }
+
+        for (Reservation reservation : readBlock(block)) {
+            if (transactionId.equals(reservation.getTransactionId())) {
+                return reservation;
+            }
+        }
+        return null;
+    }
+
+    List<Reservation> findByEventId(Long eventId) throws IOException {
+        long key = eventId == null ? Long.MIN_VALUE : eventId;
+        List<Reservation> found = new ArrayList<>();
+        // Blocks are ordered by eventId: skip those ending before it, stop at the first starting after it
+        int low = 0;
+        int high = blockLastEventIds.length;
+        while (low < high) {
+            int mid = (low + high) >>> 1;
+            if (blockLastEventIds[mid] < key) {
+                low = mid + 1;
+            } else {
+                high = mid;
+            }
+        }
+        for (int block = low; block < blockFirstEventIds.length && blockFirstEventIds[block] <= key; block++) {
+            for (Reservation reservation : readBlock(block)) {
+                if (Objects.equals(eventId, reservation.getEventId())) {
+                    found.add(reservation);
+                }
+            }
+        }
+        return found;
+    }
+
+    Path path() {
+        return path;
+    }
+
+    int recordCount() {
+        return recordCount;
+    }
+
+    long sizeBytes() {
+        return buffer.capacity();
+    }
+
+    Map<Long, Long> confirmedTickets() {
+        return confirmedTickets;
+    }
+
+    private List<Reservation> readBlock(int block) throws IOException {
+        DataInputStream data = inflate(blockOffsets[block], blockLengths[block], blockRawLengths[block]);
+        int count = data.readInt();
+        List<Reservation> reservations = new ArrayList<>(count);
+        for (int i = 0; i < count; i++) {
+            reservations.add(readRecord(data));
+        }
+        return reservations;
+    }
+
+    // slice() gives each reader its own position over the shared mapping
+    private DataInputStream inflate(long offset, int length, int rawLength) throws IOException {
+        Inflater inflater = new Inflater();
+        try {
+            inflater.setInput(buffer.slice((int) offset, length));
+            byte[] raw = new byte[rawLength];
+            int read = 0;
+            while (read < rawLength && !inflater.finished()) {
+                int inflated = inflater.inflate(raw, read, rawLength - read);
+                if (inflated == 0 && (inflater.needsInput() || inflater.needsDictionary())) {
+                    break;
+                }
+                read += inflated;
+            }
+            if (read != rawLength) {
+                throw new IOException("Truncated block at " + offset + " in " + path);
+            }
+            return new DataInputStream(new ByteArrayInputStream(raw));
+        } catch (DataFormatException e) {
+            throw new IOException("Corrupt block at " + offset + " in " + path, e);
+        } finally {
+            inflater.end();
+        }
+    }
+
+    private static byte[] deflate(byte[] raw) {
+        Deflater deflater = new Deflater(Deflater.BEST_COMPRESSION);
+        try {
+            deflater.setInput(raw);
+            deflater.finish();
+            ByteArrayOutputStream out = new ByteArrayOutputStream(Math.max(64, raw.length / 4));
+            byte[] chunk = new byte[8192];
+            while (!deflater.finished()) {
+                out.write(chunk, 0, deflater.deflate(chunk));
+            }
+            return out.toByteArray();
+        } finally {
+            deflater.end();
+        }
+    }
+
+    private static void write(FileChannel out, ByteBuffer bytes) throws IOException {
+        while (bytes.hasRemaining()) {
+            out.write(bytes);
+        }
+    }
+
+    // Index of the last key <= value, -1 if all keys are greater
+    private static int floor(String[] keys, String value) {
+        int low = 0;
+        int high = keys.length - 1;
+        while (low <= high) {
+            int mid = (low + high) >>> 1;
+            if (keys[mid].compareTo(value) <= 0) {
+                low = mid + 1;
+            } else {
+                high = mid - 1;
+            }
+        }
+        return high;
+    }
+
+    private static long eventKey(Reservation reservation) {
+        return reservation.getEventId() == null ? Long.MIN_VALUE : reservation.getEventId();
+    }
+
+    private static void writeRecord(DataOutputStream out, Reservation reservation) throws IOException {
+        writeString(out, reservation.getId());
+        writeString(out, reservation.getTransactionId());
+        writeLong(out, reservation.getEventId());
+        writeLong(out, reservation.getUserId());
+        writeLong(out, reservation.getTicketCount());
+        writeLong(out, reservation.getOriginalCapacity());
+        out.writeByte(reservation.getStatus() == null ? -1 : reservation.getStatus().ordinal());
+        writeTime(out, reservation.getCreatedAt());
+        writeString(out, reservation.getErrorMessage());
+        writeString(out, reservation.getSectionId());
+        List<Integer> seats = reservation.getSeats();
+        out.writeInt(seats == null ? -1 : seats.size());
+        if (seats != null) {
+            for (Integer seat : seats) {
+                out.writeInt(seat);
+            }
+        }
+        out.writeInt(reservation.getCapacityShard() == null ? -1 : reservation.getCapacityShard());
+        writeTime(out, reservation.getHoldExpiresAt());
+    }
+
+    private static Reservation readRecord(DataInputStream in) throws IOException {
+        Reservation.ReservationBuilder reservation = Reservation.builder()
+                .id(readString(in))
+                .transactionId(readString(in))
+                .eventId(readLong(in))
+                .userId(readLong(in))
+                .ticketCount(readLong(in))
+                .originalCapacity(readLong(in));
+        byte status = in.readByte();
+        reservation.status(status < 0 ? null : Reservation.ReservationStatus.values()[status])
+                .createdAt(readTime(in))
+                .errorMessage(readString(in))
+                .sectionId(readString(in));
+        int seatCount = in.readInt();
+        if (seatCount >= 0) {
+            List<Integer> seats = new ArrayList<>(seatCount);
+            for (int i = 0; i < seatCount; i++) {
+                seats.add(in.readInt());
+            }
+            reservation.seats(seats);
+        }
+        int shard = in.readInt();
+        return reservation.capacityShard(shard < 0 ? null : shard)
+                .holdExpiresAt(readTime(in))
+                .build();
+    }
+
+    // Length-prefixed UTF-8, -1 for null; unlike writeUTF there is no 64 KB limit
+    private static void writeString(DataOutputStream out, String value) throws IOException {
+        if (value == null) {
+            out.writeInt(-1);
+            return;
+        }
+        byte[] bytes = value.getBytes(StandardCharsets.UTF_8);
+        out.writeInt(bytes.length);
+        out.write(bytes);
+    }
+
+    private static String readString(DataInputStream in) throws IOException {
+        int length = in.readInt();
+        if (length < 0) {
+            return null;
+        }
+        byte[] bytes = new byte[length];
+        in.readFully(bytes);
+        return new String(bytes, StandardCharsets.UTF_8);
+    }
+
+    private static void writeLong(DataOutputStream out, Long value) throws IOException {
+        out.writeBoolean(value != null);
+        if (value != null) {
+            out.writeLong(value);
+        }
+    }
+
+    private static Long readLong(DataInputStream in) throws IOException {
+        return in.readBoolean() ? in.readLong() : null;
+    }
+
+    // LocalDateTime as zone-free seconds and nanos, so it reads back exactly as written
+    private static void writeTime(DataOutputStream out, LocalDateTime value) throws IOException {
+        out.writeBoolean(value != null);
+        if (value != null) {
+            out.writeLong(value.toEpochSecond(ZoneOffset.UTC));
+            out.writeInt(value.getNano());
+        }
+    }
+
+    private static LocalDateTime readTime(DataInputStream in) throws IOException {
+        return in.readBoolean() ? LocalDateTime.ofEpochSecond(in.readLong(), in.readInt(), ZoneOffset.UTC) : null;
+    }
+
+    private record IndexEntry(String transactionId, int block) {
+    }
+}
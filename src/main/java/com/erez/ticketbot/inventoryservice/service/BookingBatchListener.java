@@ -0,0 +1,91 @@
+package com.erez.ticketbot.inventoryservice.service;
+
+import com.erez.ticketbot.inventoryservice.event.InventoryEvent;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.ObjectProvider;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.dao.DuplicateKeyException;
+import org.springframework.kafka.annotation.KafkaListener;
+import org.springframework.kafka.support.KafkaHeaders;
+import org.springframework.messaging.handler.annotation.Header;
+import org.springframework.stereotype.Component;
+
+import java.util.List;
+
+/**
+ * Batch-mode consumer for booking-events, enabled with inventory.booking.batch.enabled=true.
+ * Replaces the per-record InventoryService.handleBookingEvent listener; a poll of up to
+ * max-records bookings is reserved with one transaction per batch, or one per lane
+ * when the single-writer EventLaneExecutor is enabled.
+ * A batch (or lane share) rolled back by EventBusyException is retried every busy-retry-ms; one
+ * rolled back by the unique transactionId index is retried once with every id looked up in Mongo.
+ */
+@Slf4j
+@Component
+@ConditionalOnProperty(name = "inventory.booking.batch.enabled", havingValue = "true")
+public class BookingBatchListener {
+
+    private final InventoryService inventoryService;
+    private final InventoryMetrics metrics;
+    private final EventLaneExecutor lanes;
+    private final long busyRetryMs;
+
+    @Autowired
+    public BookingBatchListener(InventoryService inventoryService,
+                                InventoryMetrics metrics,
+                                ObjectProvider<EventLaneExecutor> lanes,
+                                @Value("${inventory.admission.busy-retry-ms:500}") long busyRetryMs) {
+        this.inventoryService = inventoryService;
+        this.metrics = metrics;
+        this.lanes = lanes.getIfAvailable();
+        this.busyRetryMs = busyRetryMs;
+    }
+
+    @KafkaListener(topics = "booking-events", groupId = "inventory-service", batch = "true",
+            concurrency = "${inventory.kafka.booking-events.concurrency:1}",
+            properties = {
+                    "max.poll.records=${inventory.booking.batch.max-records:500}",
+                    "fetch.min.bytes=${inventory.booking.batch.min-bytes:65536}",
+                    "fetch.max.wait.ms=${inventory.booking.batch.max-wait-ms:100}"
+            })
+    public void handleBookingEvents(List<InventoryEvent> events,
+                                    @Header(KafkaHeaders.RECEIVED_TIMESTAMP) List<Long> timestamps) {
+        log.debug("Received batch of {} booking events", events.size());
+        timestamps.forEach(timestamp -> metrics.listenerLag("booking-events", timestamp));
+        events.forEach(event -> metrics.eventConsumed(event.eventType()));
+        if (lanes != null) {
+            lanes.runByEvent(events, InventoryEvent::eventId, this::reserve);
+        } else {
+            reserve(events);
+        }
+    }
+
+    // Both are retried here: the batch error handler would give up on the whole poll, and the
+    // filter that let a processed id through will do so again on every redelivery
+    private void reserve(List<InventoryEvent> events) {
+        boolean lookupAll = false;
+        while (true) {
+            try {
+                inventoryService.reserveInventoryBatch(events, lookupAll);
+                return;
+            } catch (DuplicateKeyException duplicate) {
+                if (lookupAll) {
+                    throw duplicate;
+                }
+                log.warn("Batch of {} bookings hit an already processed transaction, retrying with a full lookup",
+                        events.size());
+                lookupAll = true;
+            } catch (EventBusyException busy) {
+                log.warn("{}; retrying {} bookings in {} ms", busy.getMessage(), events.size(), busyRetryMs);
+                try {
+                    Thread.sleep(busyRetryMs);
+                } catch (InterruptedException e) {
+                    Thread.currentThread().interrupt();
+                    throw busy;
+                }
+            }
+        }
+    }
+}
@@ -0,0 +1,210 @@
+package com.erez.ticketbot.inventoryservice.service;
+
+import com.erez.ticketbot.inventoryservice.dto.CapacityUpdateResult;
+import com.erez.ticketbot.inventoryservice.entity.Event;
+import com.erez.ticketbot.inventoryservice.entity.Reservation;
+import com.erez.ticketbot.inventoryservice.repository.EventRepository;
+import com.erez.ticketbot.inventoryservice.repository.ReservationRepository;
+import com.mongodb.MongoBulkWriteException;
+import com.mongodb.bulk.BulkWriteError;
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.ObjectProvider;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * In-process capacity ledger, enabled with inventory.capacity.ledger.enabled=true.
+ * Reservations are decided against lock-free per-event counters; the resulting deltas are
+ * flushed to Event.leftCapacity in bulk every flush-interval-ms and on shutdown.
+ * The no-oversell guarantee holds only while this node is the single capacity writer
+ * for the events it serves (one instance, or events pinned to one instance).
+ */
+@Slf4j
+@Component
+@ConditionalOnProperty(name = "inventory.capacity.ledger.enabled", havingValue = "true")
+public class CapacityLedger {
+
+    private final EventRepository eventRepository;
+    private final ReservationRepository reservationRepository;
+    private final ObjectProvider<ReservationArchive> archive;
+    private final boolean reconcileOnStartup;
+    private final Map<Long, Counter> counters = new ConcurrentHashMap<>();
+
+    @Autowired
+    public CapacityLedger(EventRepository eventRepository,
+                          ReservationRepository reservationRepository,
+                          ObjectProvider<ReservationArchive> archive,
+                          @Value("${inventory.capacity.ledger.reconcile-on-startup:false}") boolean reconcileOnStartup) {
+        this.eventRepository = eventRepository;
+        this.reservationRepository = reservationRepository;
+        this.archive = archive;
+        this.reconcileOnStartup = reconcileOnStartup;
+    }
+
+    public CapacityUpdateResult reserve(Long eventId, long tickets) {
+        Counter counter = counter(eventId);
+        if (counter == null) {
+            return CapacityUpdateResult.notFound();
+        }
+
+        long left;
+        do {
+            left = counter.left.get();
+            if (left < tickets) {
+                return CapacityUpdateResult.insufficient(left);
+            }
+        } while (!counter.left.compareAndSet(left, left - tickets));
+
+        counter.unflushed.addAndGet(-tickets);
+        return CapacityUpdateResult.updated(left - tickets);
+    }
+
+    public CapacityUpdateResult release(Long eventId, long tickets) {
+        return adjust(eventId, tickets);
+    }
+
+    // Unconditional change; a negative delta takes back seats released by a rolled back transaction
+    public CapacityUpdateResult adjust(Long eventId, long delta) {
+        Counter counter = counter(eventId);
+        if (counter == null) {
+            return CapacityUpdateResult.notFound();
+        }
+
+        long left = counter.left.addAndGet(delta);
+        counter.unflushed.addAndGet(delta);
+        return CapacityUpdateResult.updated(left);
+    }
+
+    // Null when the event is not tracked yet
+    public Long leftCapacity(Long eventId) {
+        Counter counter = counters.get(eventId);
+        return counter == null ? null : counter.left.get();
+    }
+
+    /**
+     * Write-behind: pushes the accumulated per-event deltas to MongoDB in one bulk write.
+     * Deltas ($inc) rather than absolute values, so a flush never overwrites other writers.
+     * The bulk write is unordered, so after a partial failure only the deltas it reports as
+     * failed are re-queued; the others were applied and must not be applied again.
+     */
+    @Scheduled(fixedDelayString = "${inventory.capacity.ledger.flush-interval-ms:200}")
+    public void flush() {
+        // Iteration order is the bulk write order that write error indexes refer to
+        Map<Long, Long> deltas = new LinkedHashMap<>();
+        counters.forEach((eventId, counter) -> {
+            long delta = counter.unflushed.getAndSet(0);
+            if (delta != 0) {
+                deltas.put(eventId, delta);
+            }
+        });
+        if (deltas.isEmpty()) {
+            return;
+        }
+
+        try {
+            eventRepository.applyCapacityDeltas(deltas);
+            log.debug("Flushed capacity deltas for {} events", deltas.size());
+        } catch (Exception e) {
+            MongoBulkWriteException partial = bulkWriteFailure(e);
+            if (partial == null) {
+                // Nothing is known to have been applied
+                log.error("Capacity flush failed for {} events, will retry", deltas.size(), e);
+                deltas.forEach((eventId, delta) -> counters.get(eventId).unflushed.addAndGet(delta));
+                return;
+            }
+            List<Long> eventIds = new ArrayList<>(deltas.keySet());
+            for (BulkWriteError error : partial.getWriteErrors()) {
+                Long eventId = eventIds.get(error.getIndex());
+                counters.get(eventId).unflushed.addAndGet(deltas.get(eventId));
+            }
+            log.error("Capacity flush failed for {} of {} events, will retry those",
+                    partial.getWriteErrors().size(), deltas.size(), e);
+        }
+    }
+
+    private static MongoBulkWriteException bulkWriteFailure(Throwable exception) {
+        for (Throwable cause = exception; cause != null; cause = cause.getCause()) {
+            if (cause instanceof MongoBulkWriteException bulk) {
+                return bulk;
+            }
+        }
+        return null;
+    }
+
+    /**
+     * Loads every event before the Kafka listeners start. With reconcile-on-startup the
+     * persisted leftCapacity is first repaired to totalCapacity minus the tickets held by
+     * RESERVED and CONFIRMED reservations, covering deltas lost in a crash before a flush.
+     * CONFIRMED reservations moved to the ReservationArchive are counted from its segments.
+     * Skipped while a TTL index can delete RESERVED or CONFIRMED reservations.
+     */
+    @PostConstruct
+    public void load() {
+        // Reservations removed by a TTL index no longer count, so the repair would give their tickets back
+        boolean reconcile = reconcileOnStartup && !reservationRepository.expiresHeldReservations();
+        if (reconcileOnStartup && !reconcile) {
+            log.warn("Skipping capacity reconcile: a TTL index on reservations can delete RESERVED/CONFIRMED "
+                    + "reservations; limit it to COMPENSATED/FAILED with a partialFilterExpression");
+        }
+        Map<Long, Long> held = reconcile
+                ? reservationRepository.sumTicketsByEvent(List.of(
+                        Reservation.ReservationStatus.RESERVED, Reservation.ReservationStatus.CONFIRMED))
+                : new HashMap<>();
+        ReservationArchive archived = reconcile ? archive.getIfAvailable() : null;
+        if (archived != null) {
+            archived.archivedConfirmedTickets().forEach((eventId, tickets) -> held.merge(eventId, tickets, Long::sum));
+        }
+
+        for (Event event : eventRepository.findAll()) {
+            long left = event.getLeftCapacity();
+            if (reconcile) {
+                long expected = event.getTotalCapacity() - held.getOrDefault(event.getId(), 0L);
+                if (expected != left) {
+                    log.warn("Reconciling event {} capacity from {} to {}", event.getId(), left, expected);
+                    eventRepository.setLeftCapacity(event.getId(), expected);
+                    left = expected;
+                }
+            }
+            counters.putIfAbsent(event.getId(), new Counter(left));
+        }
+        log.info("Capacity ledger loaded with {} events", counters.size());
+    }
+
+    @PreDestroy
+    public void shutdown() {
+        flush();
+    }
+
+    private Counter counter(Long eventId) {
+        Counter counter = counters.get(eventId);
+        if (counter != null) {
+            return counter;
+        }
+        // Event created after startup: load it once, outside the map lock
+        return eventRepository.findById(eventId)
+                .map(event -> counters.computeIfAbsent(eventId, id -> new Counter(event.getLeftCapacity())))
+                .orElse(null);
+    }
+
+    private static final class Counter {
+        private final AtomicLong left;
+        private final AtomicLong unflushed = new AtomicLong();
+
+        private Counter(long left) {
+            this.left = new AtomicLong(left);
+        }
+    }
+}
@@ -0,0 +1,249 @@
+package com.erez.ticketbot.inventoryservice.service;
+
+import com.erez.ticketbot.inventoryservice.entity.Event;
+import com.erez.ticketbot.inventoryservice.entity.Reservation;
+import com.erez.ticketbot.inventoryservice.repository.EventRepository;
+import com.erez.ticketbot.inventoryservice.repository.ReservationRepository;
+import com.erez.ticketbot.inventoryservice.response.CapacityReconciliationResponse;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import jakarta.annotation.PreDestroy;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.ObjectProvider;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.stream.Stream;
+
+/**
+ * Checks that every event's leftCapacity equals totalCapacity minus the tickets held by its
+ * RESERVED and CONFIRMED reservations (plus CONFIRMED tickets in the ReservationArchive).
+ * The held tickets come from one aggregation over reservations grouped by eventId and status;
+ * events are then streamed with a capacity-only projection in id ranges of at least chunk-size
+ * ids, parallelism ranges at a time, and compared against it in memory.
+ * The aggregation and the event reads are not one snapshot, so a booking that commits between
+ * them shows up as drift. A discrepancy only counts as confirmed when the next run sees the same
+ * leftCapacity and the same expected value; with repair=true confirmed ones on plain Event
+ * documents are overwritten, conditionally on leftCapacity not having moved. Events split into
+ * capacity shards or owned by the CapacityLedger are reported only.
+ * Tickets of reservations deleted by a TTL index would look like drift (and repair would sell them
+ * again), so nothing is compared while the reservations collection has a TTL index that is not
+ * limited to COMPENSATED / FAILED (see init-mongo-production.js); the report says so instead.
+ * Metrics: inventory.reconcile.run, inventory.reconcile.discrepancies (last run),
+ * inventory.reconcile.repaired.
+ */
+@Slf4j
+@Component
+@ConditionalOnProperty(name = "inventory.reconcile.enabled", havingValue = "true", matchIfMissing = true)
+public class CapacityReconciler {
+
+    // Sparse ids widen the ranges instead of producing mostly empty ones
+    private static final long MAX_RANGES = 1024;
+
+    private static final List<Reservation.ReservationStatus> HOLDING_STATUSES = List.of(
+            Reservation.ReservationStatus.RESERVED,
+            Reservation.ReservationStatus.CONFIRMED);
+
+    private final EventRepository eventRepository;
+    private final ReservationRepository reservationRepository;
+    private final CapacityService capacityService;
+    private final ObjectProvider<ReservationArchive> archive;
+    private final boolean ledgerEnabled;
+    private final ExecutorService executor;
+    private final boolean repair;
+    private final int chunkSize;
+    private final int maxReported;
+    private final Timer runs;
+    private final AtomicLong discrepancies;
+    private final Counter repaired;
+    // Discrepancies of the previous run, by eventId
+    private Map<Long, CapacityReconciliationResponse.Discrepancy> suspected = Map.of();
+
+    @Autowired
+    public CapacityReconciler(EventRepository eventRepository,
+                              ReservationRepository reservationRepository,
+                              CapacityService capacityService,
+                              ObjectProvider<ReservationArchive> archive,
+                              ObjectProvider<CapacityLedger> ledger,
+                              MeterRegistry registry,
+                              @Value("${inventory.reconcile.repair:false}") boolean repair,
+                              @Value("${inventory.reconcile.chunk-size:5000}") int chunkSize,
+                              @Value("${inventory.reconcile.parallelism:4}") int parallelism,
+                              @Value("${inventory.reconcile.max-reported:100}") int maxReported) {
+        this.eventRepository = eventRepository;
+        this.reservationRepository = reservationRepository;
+        this.capacityService = capacityService;
+        this.archive = archive;
+        this.ledgerEnabled = ledger.getIfAvailable() != null;
+        this.repair = repair;
+        this.chunkSize = Math.max(1, chunkSize);
+        this.maxReported = maxReported;
+        this.runs = Timer.builder("inventory.reconcile.run").register(registry);
+        this.discrepancies = registry.gauge("inventory.reconcile.discrepancies", new AtomicLong());
+        this.repaired = Counter.builder("inventory.reconcile.repaired").register(registry);
+        this.executor = Executors.newFixedThreadPool(parallelism, runnable -> {
+            Thread thread = new Thread(runnable, "capacity-reconciler");
+            thread.setDaemon(true);
+            return thread;
+        });
+    }
+
+    @Scheduled(fixedDelayString = "${inventory.reconcile.interval-ms:300000}",
+            initialDelayString = "${inventory.reconcile.initial-delay-ms:120000}")
+    public void run() {
+        try {
+            CapacityReconciliationResponse report = reconcile();
+            if (!report.getDiscrepancies().isEmpty()) {
+                log.warn("Capacity reconciliation: {} of {} events drifted, {} repaired, first: {}",
+                        discrepancies.get(), report.getEventsChecked(), report.getRepaired(),
+                        report.getDiscrepancies().get(0));
+            }
+        } catch (Exception e) {
+            log.error("Capacity reconciliation failed", e);
+        }
+    }
+
+    /**
+     * One full pass over the catalog. The report lists at most max-reported discrepancies.
+     */
+    public synchronized CapacityReconciliationResponse reconcile() {
+        long started = System.nanoTime();
+        if (reservationRepository.expiresHeldReservations()) {
+            log.warn("Capacity reconciliation skipped: a TTL index on reservations can delete RESERVED/CONFIRMED "
+                    + "reservations; limit it to COMPENSATED/FAILED with a partialFilterExpression");
+            discrepancies.set(0);
+            suspected = Map.of();
+            return CapacityReconciliationResponse.builder()
+                    .heldReservationsExpire(true)
+                    .discrepancies(List.of())
+                    .build();
+        }
+
+        Map<Long, Map<Reservation.ReservationStatus, Long>> held =
+                reservationRepository.sumTicketsByEventAndStatus(HOLDING_STATUSES);
+        ReservationArchive archived = archive.getIfAvailable();
+        Map<Long, Long> archivedConfirmed = archived == null ? Map.of() : archived.archivedConfirmedTickets();
+
+        Optional<Long> min = eventRepository.findMinId();
+        Optional<Long> max = eventRepository.findMaxId();
+        AtomicLong checked = new AtomicLong();
+        Map<Long, CapacityReconciliationResponse.Discrepancy> found = new ConcurrentHashMap<>();
+        if (min.isPresent() && max.isPresent()) {
+            long span = max.get() - min.get() + 1;
+            long width = Math.max(chunkSize, (span + MAX_RANGES - 1) / MAX_RANGES);
+            List<CompletableFuture<Void>> chunks = new ArrayList<>();
+            for (long from = min.get(); from <= max.get(); from += width) {
+                long first = from;
+                long last = Math.min(max.get(), from + width - 1);
+                chunks.add(CompletableFuture.runAsync(
+                        () -> checkRange(first, last, held, archivedConfirmed, checked, found), executor));
+            }
+            CompletableFuture.allOf(chunks.toArray(CompletableFuture[]::new)).join();
+        }
+
+        Map<Long, CapacityReconciliationResponse.Discrepancy> previous = suspected;
+        int repairedCount = 0;
+        for (CapacityReconciliationResponse.Discrepancy discrepancy : found.values()) {
+            CapacityReconciliationResponse.Discrepancy before = previous.get(discrepancy.getEventId());
+            discrepancy.setConfirmed(before != null
+                    && before.getLeftCapacity().equals(discrepancy.getLeftCapacity())
+                    && before.getExpectedLeftCapacity().equals(discrepancy.getExpectedLeftCapacity()));
+            if (discrepancy.isConfirmed() && repair && repairable(discrepancy)) {
+                repairedCount += repair(discrepancy) ? 1 : 0;
+            }
+        }
+        // Repaired ones start over; everything else waits for the next run to confirm it
+        suspected = new HashMap<>(found);
+        found.values().stream().filter(CapacityReconciliationResponse.Discrepancy::isRepaired)
+                .forEach(discrepancy -> suspected.remove(discrepancy.getEventId()));
+        discrepancies.set(found.size());
+        repaired.increment(repairedCount);
+
+        long elapsed = System.nanoTime() - started;
+        runs.record(elapsed, TimeUnit.NANOSECONDS);
+        return CapacityReconciliationResponse.builder()
+                .eventsChecked(checked.get())
+                .repaired(repairedCount)
+                .durationMs(TimeUnit.NANOSECONDS.toMillis(elapsed))
+                .discrepancies(found.values().stream()
+                        .sorted(Comparator.comparing(CapacityReconciliationResponse.Discrepancy::getEventId))
+                        .limit(maxReported)
+                        .toList())
+                .build();
+    }
+
+    private void checkRange(long first, long last,
+                            Map<Long, Map<Reservation.ReservationStatus, Long>> held,
+                            Map<Long, Long> archivedConfirmed,
+                            AtomicLong checked,
+                            Map<Long, CapacityReconciliationResponse.Discrepancy> found) {
+        try (Stream<Event> events = eventRepository.streamCapacityRange(first, last)) {
+            events.forEach(event -> {
+                checked.incrementAndGet();
+                if (event.getTotalCapacity() == null || event.getLeftCapacity() == null) {
+                    return;
+                }
+                Map<Reservation.ReservationStatus, Long> byStatus = held.getOrDefault(event.getId(), Map.of());
+                long reserved = byStatus.getOrDefault(Reservation.ReservationStatus.RESERVED, 0L);
+                long confirmed = byStatus.getOrDefault(Reservation.ReservationStatus.CONFIRMED, 0L)
+                        + archivedConfirmed.getOrDefault(event.getId(), 0L);
+                long expected = event.getTotalCapacity() - reserved - confirmed;
+                Long left = capacityService.leftCapacity(event);
+                if (left != null && left != expected) {
+                    found.put(event.getId(), CapacityReconciliationResponse.Discrepancy.builder()
+                            .eventId(event.getId())
+                            .totalCapacity(event.getTotalCapacity())
+                            .leftCapacity(left)
+                            .expectedLeftCapacity(expected)
+                            .reservedTickets(reserved)
+                            .confirmedTickets(confirmed)
+                            .build());
+                }
+            });
+        }
+    }
+
+    // Only a plain Event document counter can be overwritten in place
+    private boolean repairable(CapacityReconciliationResponse.Discrepancy discrepancy) {
+        if (ledgerEnabled) {
+            return false;
+        }
+        return eventRepository.findById(discrepancy.getEventId())
+                .map(event -> event.getCapacityShards() == null || event.getCapacityShards() == 0)
+                .orElse(false);
+    }
+
+    private boolean repair(CapacityReconciliationResponse.Discrepancy discrepancy) {
+        boolean done = capacityService.correctLeftCapacity(discrepancy.getEventId(),
+                discrepancy.getLeftCapacity(), discrepancy.getExpectedLeftCapacity());
+        if (done) {
+            discrepancy.setRepaired(true);
+            log.warn("Repaired event {} capacity from {} to {} ({} reserved, {} confirmed of {})",
+                    discrepancy.getEventId(), discrepancy.getLeftCapacity(), discrepancy.getExpectedLeftCapacity(),
+                    discrepancy.getReservedTickets(), discrepancy.getConfirmedTickets(),
+                    discrepancy.getTotalCapacity());
+        }
+        return done;
+    }
+
+    @PreDestroy
+    public void shutdown() {
+        executor.shutdown();
+    }
+}
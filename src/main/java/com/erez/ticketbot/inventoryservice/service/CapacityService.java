@@ -0,0 +1,205 @@
+package com.erez.ticketbot.inventoryservice.service;
+
+import com.erez.ticketbot.inventoryservice.dto.CapacityUpdateResult;
+import com.erez.ticketbot.inventoryservice.entity.Event;
+import com.erez.ticketbot.inventoryservice.repository.EventRepository;
+import org.springframework.beans.factory.ObjectProvider;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.interceptor.TransactionInterceptor;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+/**
+ * Single entry point for capacity changes.
+ * Goes to the in-memory CapacityLedger when it is enabled, to the event's capacity shards when
+ * it has been split (ShardedCapacity), otherwise straight to the Event document, and keeps the
+ * InventoryReadCache in step with every Event capacity it observes, once the surrounding transaction
+ * commits, so readers never see capacity that is rolled back. Every outcome is also reported
+ * to EventAdmission, which keeps its sold-out state from them.
+ */
+@Service
+public class CapacityService {
+
+    private final EventRepository eventRepository;
+    private final InventoryReadCache readCache;
+    private final ShardedCapacity shardedCapacity;
+    private final CapacityLedger ledger;
+    private final EventAdmission admission;
+
+    @Autowired
+    public CapacityService(EventRepository eventRepository,
+                           InventoryReadCache readCache,
+                           ShardedCapacity shardedCapacity,
+                           ObjectProvider<CapacityLedger> ledger,
+                           EventAdmission admission) {
+        this.eventRepository = eventRepository;
+        this.readCache = readCache;
+        this.shardedCapacity = shardedCapacity;
+        this.ledger = ledger.getIfAvailable();
+        this.admission = admission;
+    }
+
+    public CapacityUpdateResult reserve(Long eventId, long tickets) {
+        return reserve(eventId, tickets, null);
+    }
+
+    // routingKey (e.g. the transactionId) picks the first shard to try on sharded events; null picks one at random
+    public CapacityUpdateResult reserve(Long eventId, long tickets, String routingKey) {
+        CapacityUpdateResult result = take(eventId, tickets, routingKey);
+        admission.reserved(eventId, result);
+        return result;
+    }
+
+    private CapacityUpdateResult take(Long eventId, long tickets, String routingKey) {
+        if (ledger != null) {
+            CapacityUpdateResult result = ledger.reserve(eventId, tickets);
+            if (result.isUpdated()) {
+                undoOnRollback(() -> ledger.adjust(eventId, tickets));
+            }
+            return observe(eventId, result);
+        }
+
+        int shards = capacityShards(readCache.event(eventId, eventRepository::findById).orElse(null));
+        if (shards == 0) {
+            CapacityUpdateResult result = eventRepository.reserveCapacity(eventId, tickets);
+            if (result.outcome() != CapacityUpdateResult.Outcome.INSUFFICIENT_CAPACITY) {
+                return observe(eventId, result);
+            }
+            // The cached event may predate a split, which leaves the Event document empty
+            shards = capacityShards(eventRepository.findById(eventId).orElse(null));
+            if (shards == 0) {
+                return observe(eventId, result);
+            }
+            readCache.invalidateEvent(eventId);
+        }
+        CapacityUpdateResult result = shardedCapacity.reserve(eventId, shards, routingKey, tickets);
+        // A shortfall reports the largest counter, not the Event document's value
+        return result.outcome() == CapacityUpdateResult.Outcome.INSUFFICIENT_CAPACITY ? result : observe(eventId, result);
+    }
+
+    public CapacityUpdateResult release(Long eventId, long tickets) {
+        return release(eventId, tickets, null);
+    }
+
+    // shard is where reserve() took the tickets from; null returns them to the Event document
+    public CapacityUpdateResult release(Long eventId, long tickets, Integer shard) {
+        CapacityUpdateResult result;
+        if (ledger != null) {
+            result = ledger.release(eventId, tickets);
+            if (result.isUpdated()) {
+                undoOnRollback(() -> ledger.adjust(eventId, -tickets));
+            }
+        } else {
+            result = shard != null
+                    ? shardedCapacity.release(eventId, shard, tickets)
+                    : eventRepository.releaseCapacity(eventId, tickets);
+        }
+        if (result.isUpdated()) {
+            admission.released(eventId);
+        }
+        return observe(eventId, result);
+    }
+
+    /**
+     * Gives back seats taken by reserve() when the booking turns out to be a duplicate.
+     * Inside a transaction the transaction is rolled back, which also undoes ledger decisions;
+     * outside one the seats are released explicitly.
+     */
+    public void cancelReservation(Long eventId, long tickets, Integer shard) {
+        if (TransactionSynchronizationManager.isActualTransactionActive()) {
+            TransactionInterceptor.currentTransactionStatus().setRollbackOnly();
+        } else {
+            release(eventId, tickets, shard);
+        }
+    }
+
+    /**
+     * Splits the event's capacity across shards documents. Not available with the ledger,
+     * which already keeps capacity off the Event document.
+     */
+    public long shardCapacity(Long eventId, int shards) {
+        if (ledger != null) {
+            throw new RuntimeException("Capacity shards cannot be used with the capacity ledger");
+        }
+        long split = shardedCapacity.split(eventId, shards);
+        readCache.invalidateEvent(eventId);
+        admission.released(eventId);
+        return split;
+    }
+
+    /**
+     * Repairs drift on an Event document counter: leftCapacity becomes corrected only if it still
+     * holds observed. Events on the ledger or split into shards keep their capacity elsewhere and
+     * are not repaired here.
+     */
+    public boolean correctLeftCapacity(Long eventId, long observed, long corrected) {
+        if (ledger != null) {
+            throw new RuntimeException("Capacity cannot be corrected while the capacity ledger owns it");
+        }
+        if (!eventRepository.replaceLeftCapacity(eventId, observed, corrected)) {
+            return false;
+        }
+        afterCommit(() -> readCache.updateCapacity(eventId, corrected));
+        if (corrected > observed) {
+            admission.released(eventId);
+        }
+        return true;
+    }
+
+    // Ledger value wins over the persisted one, which may lag by one flush interval
+    public Long leftCapacity(Event event) {
+        if (ledger != null) {
+            Long left = ledger.leftCapacity(event.getId());
+            if (left != null) {
+                return left;
+            }
+        }
+        if (capacityShards(event) > 0) {
+            return event.getLeftCapacity() + shardedCapacity.leftCapacity(event.getId());
+        }
+        return event.getLeftCapacity();
+    }
+
+    private static int capacityShards(Event event) {
+        return event == null || event.getCapacityShards() == null ? 0 : event.getCapacityShards();
+    }
+
+    // The ledger is not part of the Mongo transaction, so mirror a rollback by hand
+    private static void undoOnRollback(Runnable undo) {
+        if (TransactionSynchronizationManager.isSynchronizationActive()) {
+            TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+                @Override
+                public void afterCompletion(int status) {
+                    if (status == STATUS_ROLLED_BACK) {
+                        undo.run();
+                    }
+                }
+            });
+        }
+    }
+
+    private static void afterCommit(Runnable action) {
+        if (!TransactionSynchronizationManager.isSynchronizationActive()) {
+            action.run();
+            return;
+        }
+        TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+            @Override
+            public void afterCommit() {
+                action.run();
+            }
+        });
+    }
+
+    // Only Event document values go into the cached Event; shard values are a different counter.
+    // The cache is shared with readers outside the transaction, so the value goes in after commit
+    private CapacityUpdateResult observe(Long eventId, CapacityUpdateResult result) {
+        if (result.outcome() == CapacityUpdateResult.Outcome.EVENT_NOT_FOUND) {
+            readCache.invalidateEvent(eventId);
+        } else if (result.shard() == null) {
+            afterCommit(() -> readCache.updateCapacity(eventId, result.leftCapacity()));
+        }
+        return result;
+    }
+}
@@ -0,0 +1,403 @@
+package com.erez.ticketbot.inventoryservice.service;
+
+import com.erez.ticketbot.inventoryservice.entity.CapacityShard;
+import com.erez.ticketbot.inventoryservice.entity.Event;
+import com.erez.ticketbot.inventoryservice.repository.CapacityShardRepository;
+import com.erez.ticketbot.inventoryservice.repository.EventRepository;
+import com.erez.ticketbot.inventoryservice.response.CapacityUpdateResponse;
+import com.mongodb.client.MongoChangeStreamCursor;
+import com.mongodb.client.model.Aggregates;
+import com.mongodb.client.model.Filters;
+import com.mongodb.client.model.Projections;
+import com.mongodb.client.model.changestream.ChangeStreamDocument;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
+import lombok.extern.slf4j.Slf4j;
+import org.bson.BsonDocument;
+import org.bson.BsonValue;
+import org.bson.Document;
+import org.bson.conversions.Bson;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.data.mongodb.core.MongoTemplate;
+import org.springframework.http.MediaType;
+import org.springframework.stereotype.Component;
+import org.springframework.web.servlet.mvc.method.annotation.SseEmitter;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.Consumer;
+
+/**
+ * Pushes leftCapacity changes to SSE subscribers.
+ * One change stream on the events collection feeds every subscriber. Updates are coalesced per
+ * subscriber and event (only the latest value is kept), so a subscriber's buffer never holds more
+ * than its subscribed events, and a slow client only ever delays its own next flush.
+ * With the capacity ledger enabled, values arrive as the ledger flushes them.
+ * Events split into capacity shards (ShardedCapacity) take bookings on capacity_shards, not on the
+ * Event document, so a second change stream watches that collection. A change on either side only
+ * marks a subscribed sharded event; each flush then sends its total (Event document plus shards),
+ * one read per event per coalesce-ms however many bookings hit it.
+ * Updates are read from updateDescription alone, without a full-document lookup, so a booking
+ * costs the stream no extra read. They only carry the documentKey, so the _ids of subscribed
+ * events and of their shards are remembered while they have subscribers; inserts and replaces
+ * carry the whole document anyway.
+ */
+@Slf4j
+@Component
+public class CapacityUpdateStream {
+
+    private static final List<Bson> PIPELINE = List.of(
+            Aggregates.match(Filters.or(
+                    Filters.in("operationType", List.of("insert", "replace")),
+                    Filters.exists("updateDescription.updatedFields.leftCapacity"),
+                    Filters.exists("updateDescription.updatedFields.capacityShards"))),
+            Aggregates.project(Projections.include("operationType", "documentKey",
+                    "updateDescription.updatedFields.leftCapacity", "updateDescription.updatedFields.capacityShards",
+                    "fullDocument.id", "fullDocument.leftCapacity", "fullDocument.capacityShards")));
+
+    private static final List<Bson> SHARD_PIPELINE = List.of(
+            Aggregates.match(Filters.or(
+                    Filters.in("operationType", List.of("insert", "replace")),
+                    Filters.exists("updateDescription.updatedFields.leftCapacity"))),
+            Aggregates.project(Projections.include("operationType", "documentKey", "fullDocument.eventId")));
+
+    private final MongoTemplate mongoTemplate;
+    private final EventRepository eventRepository;
+    private final CapacityShardRepository shardRepository;
+    private final InventoryReadCache readCache;
+    private final CapacityService capacityService;
+    private final boolean enabled;
+    private final long coalesceMs;
+    private final long heartbeatMs;
+    private final long timeoutMs;
+    private final int maxSubscribers;
+    private final int maxEventsPerSubscriber;
+
+    private final Map<Long, Set<Subscriber>> subscribersByEvent = new ConcurrentHashMap<>();
+    private final Set<Subscriber> subscribers = ConcurrentHashMap.newKeySet();
+    // Subscribed sharded events changed since the last flush
+    private final Set<Long> shardedChanges = ConcurrentHashMap.newKeySet();
+    // documentKey _id -> eventId of subscribed events and of their capacity shards
+    private final Map<String, Long> eventsByDocument = new ConcurrentHashMap<>();
+    private final Map<String, Long> eventsByShardDocument = new ConcurrentHashMap<>();
+    private final Set<Long> shardedEvents = ConcurrentHashMap.newKeySet();
+    private final AtomicInteger subscriberCount = new AtomicInteger();
+    private final ScheduledExecutorService flusher;
+    private final ExecutorService senders;
+    private volatile boolean running;
+
+    @Autowired
+    public CapacityUpdateStream(MongoTemplate mongoTemplate,
+                                EventRepository eventRepository,
+                                CapacityShardRepository shardRepository,
+                                InventoryReadCache readCache,
+                                CapacityService capacityService,
+                                MeterRegistry registry,
+                                @Value("${inventory.capacity.stream.enabled:true}") boolean enabled,
+                                @Value("${inventory.capacity.stream.coalesce-ms:250}") long coalesceMs,
+                                @Value("${inventory.capacity.stream.heartbeat-ms:15000}") long heartbeatMs,
+                                @Value("${inventory.capacity.stream.timeout-ms:1800000}") long timeoutMs,
+                                @Value("${inventory.capacity.stream.max-subscribers:10000}") int maxSubscribers,
+                                @Value("${inventory.capacity.stream.max-events-per-subscriber:50}") int maxEventsPerSubscriber,
+                                @Value("${inventory.capacity.stream.send-threads:4}") int sendThreads) {
+        this.mongoTemplate = mongoTemplate;
+        this.eventRepository = eventRepository;
+        this.shardRepository = shardRepository;
+        this.readCache = readCache;
+        this.capacityService = capacityService;
+        this.enabled = enabled;
+        this.coalesceMs = coalesceMs;
+        this.heartbeatMs = heartbeatMs;
+        this.timeoutMs = timeoutMs;
+        this.maxSubscribers = maxSubscribers;
+        this.maxEventsPerSubscriber = maxEventsPerSubscriber;
+        this.flusher = Executors.newSingleThreadScheduledExecutor(daemon("capacity-stream-flush"));
+        this.senders = Executors.newFixedThreadPool(sendThreads, daemon("capacity-stream-send"));
+        Gauge.builder("inventory.capacity.stream.subscribers", subscriberCount, AtomicInteger::get)
+                .register(registry);
+    }
+
+    @PostConstruct
+    public void start() {
+        if (!enabled) {
+            return;
+        }
+        running = true;
+        daemon("capacity-change-stream").newThread(
+                () -> watch(mongoTemplate.getCollectionName(Event.class), PIPELINE, this::onEventChange)).start();
+        daemon("capacity-shard-change-stream").newThread(
+                () -> watch(mongoTemplate.getCollectionName(CapacityShard.class), SHARD_PIPELINE, this::onShardChange)).start();
+        flusher.scheduleWithFixedDelay(this::flush, coalesceMs, coalesceMs, TimeUnit.MILLISECONDS);
+    }
+
+    @PreDestroy
+    public void stop() {
+        running = false;
+        flusher.shutdown();
+        senders.shutdown();
+        subscribers.forEach(subscriber -> subscriber.emitter.complete());
+    }
+
+    public SseEmitter subscribe(Collection<Long> eventIds) {
+        if (!enabled) {
+            throw new RuntimeException("Live capacity stream is disabled");
+        }
+        final Set<Long> ids = new LinkedHashSet<>(eventIds);
+        if (ids.isEmpty() || ids.size() > maxEventsPerSubscriber) {
+            throw new RuntimeException(String.format("Subscribe to between 1 and %d events, requested: %d",
+                    maxEventsPerSubscriber, ids.size()));
+        }
+        if (subscriberCount.incrementAndGet() > maxSubscribers) {
+            subscriberCount.decrementAndGet();
+            throw new RuntimeException("Too many live capacity subscribers");
+        }
+
+        final Subscriber subscriber = new Subscriber(new SseEmitter(timeoutMs), ids);
+        subscriber.emitter.onCompletion(() -> unsubscribe(subscriber));
+        subscriber.emitter.onTimeout(() -> unsubscribe(subscriber));
+        subscriber.emitter.onError(error -> unsubscribe(subscriber));
+        subscribers.add(subscriber);
+        ids.forEach(id -> subscribersByEvent.computeIfAbsent(id, key -> ConcurrentHashMap.newKeySet()).add(subscriber));
+
+        // Current values first; anything newer from the change stream overwrites them before the flush
+        for (Long id : ids) {
+            readCache.event(id, eventRepository::findById).ifPresent(event -> {
+                track(event);
+                subscriber.pending.putIfAbsent(id, capacityService.leftCapacity(event));
+            });
+        }
+        return subscriber.emitter;
+    }
+
+    private void unsubscribe(Subscriber subscriber) {
+        if (!subscribers.remove(subscriber)) {
+            return;
+        }
+        subscriberCount.decrementAndGet();
+        for (Long id : subscriber.eventIds) {
+            subscribersByEvent.computeIfPresent(id, (key, set) -> {
+                set.remove(subscriber);
+                if (set.isEmpty()) {
+                    forget(key);
+                    return null;
+                }
+                return set;
+            });
+        }
+    }
+
+    private void onCapacity(Long eventId, Long leftCapacity) {
+        final Set<Subscriber> interested = subscribersByEvent.get(eventId);
+        if (interested != null) {
+            interested.forEach(subscriber -> subscriber.pending.put(eventId, leftCapacity));
+        }
+    }
+
+    private void track(Event event) {
+        if (eventsByDocument.putIfAbsent(event.getMongoId(), event.getId()) == null
+                && event.getCapacityShards() != null && event.getCapacityShards() > 0) {
+            trackShards(event.getId());
+        }
+    }
+
+    private void trackShards(Long eventId) {
+        if (shardedEvents.add(eventId)) {
+            shardRepository.findByEventId(eventId)
+                    .forEach(shard -> eventsByShardDocument.put(shard.getMongoId(), eventId));
+        }
+    }
+
+    // Runs when the event's last subscriber leaves
+    private void forget(Long eventId) {
+        eventsByDocument.values().removeIf(eventId::equals);
+        eventsByShardDocument.values().removeIf(eventId::equals);
+        shardedEvents.remove(eventId);
+        shardedChanges.remove(eventId);
+    }
+
+    private void onEventChange(ChangeStreamDocument<Document> change) {
+        final Document event = change.getFullDocument();
+        if (event != null) {
+            // Insert or replace: the whole document is in the change
+            if (!(event.get("id") instanceof Number id) || !subscribersByEvent.containsKey(id.longValue())) {
+                return;
+            }
+            // On a sharded event the document only holds what was not split off
+            if (event.get("capacityShards") instanceof Number shards && shards.intValue() > 0) {
+                trackShards(id.longValue());
+                markSharded(id.longValue());
+            } else if (event.get("leftCapacity") instanceof Number leftCapacity) {
+                onCapacity(id.longValue(), leftCapacity.longValue());
+            }
+            return;
+        }
+
+        final Long eventId = eventsByDocument.get(documentId(change.getDocumentKey()));
+        if (eventId == null || change.getUpdateDescription() == null) {
+            return;
+        }
+        final BsonDocument updated = change.getUpdateDescription().getUpdatedFields();
+        final BsonValue shards = updated == null ? null : updated.get("capacityShards");
+        final BsonValue leftCapacity = updated == null ? null : updated.get("leftCapacity");
+        if (shards != null && shards.isNumber() && shards.asNumber().intValue() > 0) {
+            trackShards(eventId);
+            markSharded(eventId);
+        } else if (shardedEvents.contains(eventId)) {
+            markSharded(eventId);
+        } else if (leftCapacity != null && leftCapacity.isNumber()) {
+            onCapacity(eventId, leftCapacity.asNumber().longValue());
+        }
+    }
+
+    private void onShardChange(ChangeStreamDocument<Document> change) {
+        final String documentId = documentId(change.getDocumentKey());
+        final Document shard = change.getFullDocument();
+        if (shard != null) {
+            // A new shard of a subscribed event: remember it, later updates only carry its _id
+            if (shard.get("eventId") instanceof Number eventId && subscribersByEvent.containsKey(eventId.longValue())) {
+                eventsByShardDocument.put(documentId, eventId.longValue());
+                markSharded(eventId.longValue());
+            }
+            return;
+        }
+        final Long eventId = eventsByShardDocument.get(documentId);
+        if (eventId != null) {
+            markSharded(eventId);
+        }
+    }
+
+    private static String documentId(BsonDocument documentKey) {
+        final BsonValue id = documentKey == null ? null : documentKey.get("_id");
+        if (id == null) {
+            return "";
+        }
+        if (id.isObjectId()) {
+            return id.asObjectId().getValue().toHexString();
+        }
+        return id.isString() ? id.asString().getValue() : id.toString();
+    }
+
+    private void markSharded(Long eventId) {
+        if (subscribersByEvent.containsKey(eventId)) {
+            shardedChanges.add(eventId);
+        }
+    }
+
+    private void resolveSharded() {
+        for (Long eventId : shardedChanges) {
+            shardedChanges.remove(eventId);
+            try {
+                eventRepository.findById(eventId)
+                        .ifPresent(event -> onCapacity(eventId, capacityService.leftCapacity(event)));
+            } catch (Exception e) {
+                log.debug("Failed to read sharded capacity of event {}: {}", eventId, e.getMessage());
+            }
+        }
+    }
+
+    private void flush() {
+        resolveSharded();
+        final long now = System.currentTimeMillis();
+        for (Subscriber subscriber : subscribers) {
+            final boolean due = !subscriber.pending.isEmpty() || now - subscriber.lastSent >= heartbeatMs;
+            // A subscriber still busy with its previous send keeps coalescing instead of queueing
+            if (due && subscriber.sending.compareAndSet(false, true)) {
+                senders.execute(() -> send(subscriber));
+            }
+        }
+    }
+
+    private void send(Subscriber subscriber) {
+        try {
+            final List<CapacityUpdateResponse> updates = new ArrayList<>(subscriber.pending.size());
+            for (Long eventId : subscriber.pending.keySet()) {
+                final Long leftCapacity = subscriber.pending.remove(eventId);
+                if (leftCapacity != null) {
+                    updates.add(CapacityUpdateResponse.builder().eventId(eventId).leftCapacity(leftCapacity).build());
+                }
+            }
+            if (updates.isEmpty()) {
+                subscriber.emitter.send(SseEmitter.event().comment("heartbeat"));
+            } else {
+                subscriber.emitter.send(SseEmitter.event().name("capacity").data(updates, MediaType.APPLICATION_JSON));
+            }
+            subscriber.lastSent = System.currentTimeMillis();
+        } catch (Exception e) {
+            log.debug("Dropping live capacity subscriber: {}", e.getMessage());
+            subscriber.emitter.completeWithError(e);
+            unsubscribe(subscriber);
+        } finally {
+            subscriber.sending.set(false);
+        }
+    }
+
+    private void watch(String collection, List<Bson> pipeline, Consumer<ChangeStreamDocument<Document>> onChange) {
+        BsonDocument resumeToken = null;
+        while (running) {
+            var changes = mongoTemplate.getCollection(collection)
+                    .watch(pipeline)
+                    .maxAwaitTime(1, TimeUnit.SECONDS);
+            if (resumeToken != null) {
+                changes = changes.resumeAfter(resumeToken);
+            }
+            try (MongoChangeStreamCursor<ChangeStreamDocument<Document>> cursor = changes.cursor()) {
+                while (running) {
+                    final ChangeStreamDocument<Document> change = cursor.tryNext();
+                    if (change == null) {
+                        continue;
+                    }
+                    resumeToken = change.getResumeToken();
+                    onChange.accept(change);
+                }
+            } catch (Exception e) {
+                if (!running) {
+                    return;
+                }
+                log.warn("Capacity change stream on {} failed, resuming: {}", collection, e.getMessage());
+                try {
+                    Thread.sleep(1000);
+                } catch (InterruptedException interrupted) {
+                    Thread.currentThread().interrupt();
+                    return;
+                }
+            }
+        }
+    }
+
+    private static ThreadFactory daemon(String name) {
+        return runnable -> {
+            Thread thread = new Thread(runnable, name);
+            thread.setDaemon(true);
+            return thread;
+        };
+    }
+
+    private static final class Subscriber {
+        private final SseEmitter emitter;
+        private final Set<Long> eventIds;
+        // eventId -> latest leftCapacity not yet sent; bounded by eventIds
+        private final Map<Long, Long> pending = new ConcurrentHashMap<>();
+        private final AtomicBoolean sending = new AtomicBoolean();
+        private volatile long lastSent = System.currentTimeMillis();
+
+        private Subscriber(SseEmitter emitter, Set<Long> eventIds) {
+            this.emitter = emitter;
+            this.eventIds = eventIds;
+        }
+    }
+}
@@ -0,0 +1,160 @@
+package com.erez.ticketbot.inventoryservice.service;
+
+import com.erez.ticketbot.inventoryservice.dto.CapacityUpdateResult;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Per-event admission in front of the capacity update.
+ * Sold-out cache: CapacityService reports every reserve/release outcome here. After a shortfall
+ * (or a booking that took the last ticket) requests for more than the observed capacity are
+ * rejected in memory with a prebuilt message until a release on this node clears it, or for at
+ * most sold-out-ttl-ms, which bounds how long releases made by other nodes go unnoticed.
+ * In-flight budget: at most max-in-flight bookings per event hold a permit at once; the rest wait
+ * up to in-flight-wait-ms and then get an EventBusyException, so one hot event cannot tie up every
+ * worker and Mongo connection. A busy booking is retried later, never recorded as failed. Disabled with inventory.admission.enabled=false.
+ * Metrics: inventory.admission.sold-out, inventory.admission.busy.
+ */
+@Component
+public class EventAdmission {
+
+    // Returned by enter() when admission is disabled
+    private static final Permit UNLIMITED = () -> { };
+
+    private final boolean enabled;
+    private final long soldOutTtlNanos;
+    private final int maxInFlight;
+    private final long inFlightWaitMs;
+    private final Map<Long, Gate> gates = new ConcurrentHashMap<>();
+    private final Counter soldOutRejections;
+    private final Counter busyRejections;
+
+    @Autowired
+    public EventAdmission(MeterRegistry registry,
+                          @Value("${inventory.admission.enabled:true}") boolean enabled,
+                          @Value("${inventory.admission.sold-out-ttl-ms:1000}") long soldOutTtlMs,
+                          @Value("${inventory.admission.max-in-flight:32}") int maxInFlight,
+                          @Value("${inventory.admission.in-flight-wait-ms:2000}") long inFlightWaitMs) {
+        this.enabled = enabled;
+        this.soldOutTtlNanos = TimeUnit.MILLISECONDS.toNanos(soldOutTtlMs);
+        this.maxInFlight = maxInFlight;
+        this.inFlightWaitMs = inFlightWaitMs;
+        this.soldOutRejections = Counter.builder("inventory.admission.sold-out").register(registry);
+        this.busyRejections = Counter.builder("inventory.admission.busy").register(registry);
+    }
+
+    /**
+     * @return the failure message when the event is known not to have tickets left for this
+     * request, null when it may go ahead
+     */
+    public String soldOutRejection(Long eventId, Long tickets) {
+        if (!enabled || eventId == null || tickets == null) {
+            return null;
+        }
+        Gate gate = gates.get(eventId);
+        SoldOut soldOut = gate == null ? null : gate.soldOut;
+        if (soldOut == null || tickets <= soldOut.left || System.nanoTime() - soldOut.observedAt > soldOutTtlNanos) {
+            return null;
+        }
+        soldOutRejections.increment();
+        return soldOut.message + tickets;
+    }
+
+    /**
+     * Takes one of the event's in-flight permits; close the permit when the capacity work is done.
+     * Throws EventBusyException when none frees up within in-flight-wait-ms.
+     */
+    public Permit enter(Long eventId) {
+        if (!enabled || eventId == null) {
+            return UNLIMITED;
+        }
+        Semaphore inFlight = gate(eventId).inFlight;
+        boolean acquired;
+        try {
+            acquired = inFlight.tryAcquire(inFlightWaitMs, TimeUnit.MILLISECONDS);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            acquired = false;
+        }
+        if (!acquired) {
+            busyRejections.increment();
+            throw new EventBusyException(String.format(
+                    "Event %d has more than %d bookings in flight, try again later", eventId, maxInFlight));
+        }
+        return inFlight::release;
+    }
+
+    // Called by CapacityService with every reserve outcome
+    void reserved(Long eventId, CapacityUpdateResult result) {
+        if (!enabled || result.leftCapacity() == null) {
+            return;
+        }
+        if (result.outcome() == CapacityUpdateResult.Outcome.INSUFFICIENT_CAPACITY) {
+            markSoldOut(eventId, result.leftCapacity());
+        } else if (result.isUpdated() && result.leftCapacity() == 0 && result.shard() == null) {
+            // Only once the last ticket is really gone: a rollback would give it back
+            afterCommit(() -> markSoldOut(eventId, 0));
+        }
+    }
+
+    // Called by CapacityService whenever tickets go back to an event
+    void released(Long eventId) {
+        Gate gate = enabled ? gates.get(eventId) : null;
+        if (gate != null) {
+            gate.soldOut = null;
+        }
+    }
+
+    private void markSoldOut(Long eventId, long left) {
+        gate(eventId).soldOut = new SoldOut(left, System.nanoTime(),
+                "Insufficient capacity. Available: " + left + ", Requested: ");
+    }
+
+    private Gate gate(Long eventId) {
+        return gates.computeIfAbsent(eventId, id -> new Gate(maxInFlight));
+    }
+
+    private static void afterCommit(Runnable action) {
+        if (!TransactionSynchronizationManager.isSynchronizationActive()) {
+            action.run();
+            return;
+        }
+        TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+            @Override
+            public void afterCommit() {
+                action.run();
+            }
+        });
+    }
+
+    @FunctionalInterface
+    public interface Permit extends AutoCloseable {
+
+        @Override
+        void close();
+    }
+
+    private static final class Gate {
+
+        private final Semaphore inFlight;
+        private volatile SoldOut soldOut;
+
+        private Gate(int maxInFlight) {
+            this.inFlight = new Semaphore(maxInFlight);
+        }
+    }
+
+    // The message is built once per observation; only the requested count is appended per rejection
+    private record SoldOut(long left, long observedAt, String message) {
+    }
+}
@@ -0,0 +1,17 @@
+package com.erez.ticketbot.inventoryservice.service;
+
+import org.springframework.http.HttpStatus;
+import org.springframework.web.bind.annotation.ResponseStatus;
+
+/**
+ * An event's in-flight budget stayed exhausted for in-flight-wait-ms (see EventAdmission).
+ * Temporary: the booking is neither reserved nor failed, Kafka redelivers it (KafkaConfig)
+ * and REST callers get a 503 to retry.
+ */
+@ResponseStatus(HttpStatus.SERVICE_UNAVAILABLE)
+public class EventBusyException extends RuntimeException {
+
+    public EventBusyException(String message) {
+        super(message);
+    }
+}
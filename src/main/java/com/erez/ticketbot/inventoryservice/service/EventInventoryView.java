@@ -0,0 +1,132 @@
+package com.erez.ticketbot.inventoryservice.service;
+
+import com.erez.ticketbot.inventoryservice.entity.Event;
+import com.erez.ticketbot.inventoryservice.repository.EventRepository;
+import com.erez.ticketbot.inventoryservice.response.EventInventoryResponse;
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+import tools.jackson.core.JacksonException;
+import tools.jackson.databind.json.JsonMapper;
+
+import java.io.ByteArrayOutputStream;
+import java.math.BigDecimal;
+import java.time.Duration;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Objects;
+
+/**
+ * Materialized JSON for the event inventory read endpoints.
+ * Each event's response is serialized once and reused until its capacity or price changes,
+ * so a read is a cache lookup and a comparison; name/venue edits show up after view-ttl-ms.
+ * The listing is rebuilt only when the cached listing or one of its capacities changed.
+ */
+@Component
+public class EventInventoryView {
+
+    private final EventRepository eventRepository;
+    private final InventoryReadCache readCache;
+    private final CapacityService capacityService;
+    // The application's mapper, so the bodies match what the controllers would serialize
+    private final JsonMapper jsonMapper;
+    private final Cache<Long, Rendered> details;
+    private final Cache<Long, Rendered> listingEntries;
+    private volatile Listing listing;
+
+    @Autowired
+    public EventInventoryView(EventRepository eventRepository,
+                              InventoryReadCache readCache,
+                              CapacityService capacityService,
+                              JsonMapper jsonMapper,
+                              @Value("${inventory.cache.max-events:10000}") long maxEvents,
+                              @Value("${inventory.cache.view-ttl-ms:60000}") long viewTtlMs) {
+        this.eventRepository = eventRepository;
+        this.readCache = readCache;
+        this.capacityService = capacityService;
+        this.jsonMapper = jsonMapper;
+        this.details = Caffeine.newBuilder().maximumSize(maxEvents).expireAfterWrite(Duration.ofMillis(viewTtlMs)).build();
+        this.listingEntries = Caffeine.newBuilder().maximumSize(maxEvents).expireAfterWrite(Duration.ofMillis(viewTtlMs)).build();
+    }
+
+    // Same body as InventoryService.getEventInventory
+    public byte[] eventJson(Long eventId) {
+        final Event event = readCache.event(eventId, eventRepository::findById)
+                .orElseThrow(() -> new RuntimeException("Event not found: " + eventId));
+        return render(details, event, capacityService.leftCapacity(event), true);
+    }
+
+    // Startup warm-up: renders the detail body from an already loaded event, no read-cache lookup
+    public void warm(Event event) {
+        render(details, event, capacityService.leftCapacity(event), true);
+    }
+
+    // Same body as InventoryService.getAllEvents
+    public byte[] allEventsJson() {
+        final List<Event> events = readCache.allEvents(eventRepository::findAll);
+        final long[] capacities = new long[events.size()];
+        for (int i = 0; i < capacities.length; i++) {
+            capacities[i] = capacity(latest(events.get(i)));
+        }
+
+        final Listing current = listing;
+        if (current != null && current.events == events && Arrays.equals(current.capacities, capacities)) {
+            return current.json;
+        }
+
+        final ByteArrayOutputStream out = new ByteArrayOutputStream(Math.max(64, events.size() * 256));
+        out.write('[');
+        for (int i = 0; i < capacities.length; i++) {
+            if (i > 0) {
+                out.write(',');
+            }
+            out.writeBytes(render(listingEntries, events.get(i),
+                    capacities[i] == Long.MIN_VALUE ? null : capacities[i], false));
+        }
+        out.write(']');
+        final Listing rebuilt = new Listing(events, capacities, out.toByteArray());
+        listing = rebuilt;
+        return rebuilt.json;
+    }
+
+    private byte[] render(Cache<Long, Rendered> cache, Event event, Long leftCapacity, boolean detail) {
+        final Rendered cached = cache.getIfPresent(event.getId());
+        if (cached != null && Objects.equals(cached.leftCapacity, leftCapacity)
+                && Objects.equals(cached.ticketPrice, event.getTicketPrice())) {
+            return cached.json;
+        }
+
+        final EventInventoryResponse.EventInventoryResponseBuilder response = EventInventoryResponse.builder()
+                .event(event.getName())
+                .capacity(leftCapacity)
+                .venue(event.getVenue());
+        if (detail) {
+            response.ticketPrice(event.getTicketPrice()).eventId(event.getId());
+        }
+        try {
+            final byte[] json = jsonMapper.writeValueAsBytes(response.build());
+            cache.put(event.getId(), new Rendered(leftCapacity, event.getTicketPrice(), json));
+            return json;
+        } catch (JacksonException e) {
+            throw new RuntimeException("Failed to serialize inventory of event " + event.getId(), e);
+        }
+    }
+
+    private Event latest(Event event) {
+        final Event cached = readCache.cachedEvent(event.getId());
+        return cached != null ? cached : event;
+    }
+
+    private long capacity(Event event) {
+        final Long left = capacityService.leftCapacity(event);
+        return left == null ? Long.MIN_VALUE : left;
+    }
+
+    private record Rendered(Long leftCapacity, BigDecimal ticketPrice, byte[] json) {
+    }
+
+    private record Listing(List<Event> events, long[] capacities, byte[] json) {
+    }
+}
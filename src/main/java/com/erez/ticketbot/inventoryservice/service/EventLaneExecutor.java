@@ -0,0 +1,89 @@
+package com.erez.ticketbot.inventoryservice.service;
+
+import jakarta.annotation.PreDestroy;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.stereotype.Component;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.function.Consumer;
+import java.util.function.Function;
+
+/**
+ * Single-writer processing, enabled with inventory.booking.single-writer.enabled=true.
+ * Every event id maps to exactly one lane, and each lane is one thread, so all work for an
+ * event on this node runs sequentially and in arrival order while different events run in
+ * parallel. Across nodes the same holds when booking-events is keyed by eventId, since a
+ * partition is consumed by one node at a time.
+ */
+@Slf4j
+@Component
+@ConditionalOnProperty(name = "inventory.booking.single-writer.enabled", havingValue = "true")
+public class EventLaneExecutor {
+
+    private final ExecutorService[] lanes;
+
+    @Autowired
+    public EventLaneExecutor(@Value("${inventory.booking.single-writer.lanes:8}") int laneCount) {
+        this.lanes = new ExecutorService[laneCount];
+        for (int i = 0; i < laneCount; i++) {
+            final int lane = i;
+            lanes[i] = Executors.newSingleThreadExecutor(runnable -> {
+                Thread thread = new Thread(runnable, "event-lane-" + lane);
+                thread.setDaemon(true);
+                return thread;
+            });
+        }
+        log.info("Single-writer mode: {} event lanes", laneCount);
+    }
+
+    /**
+     * Splits items by lane (keeping their relative order), runs each lane's share on that
+     * lane's thread and waits for all of them, so the caller's offsets are only committed
+     * once every item has been processed. The first failure is rethrown.
+     */
+    public <T> void runByEvent(List<T> items, Function<T, Long> eventId, Consumer<List<T>> worker) {
+        List<List<T>> byLane = new ArrayList<>(lanes.length);
+        for (int i = 0; i < lanes.length; i++) {
+            byLane.add(new ArrayList<>());
+        }
+        for (T item : items) {
+            byLane.get(laneOf(eventId.apply(item))).add(item);
+        }
+
+        List<CompletableFuture<Void>> running = new ArrayList<>();
+        for (int i = 0; i < lanes.length; i++) {
+            List<T> share = byLane.get(i);
+            if (!share.isEmpty()) {
+                running.add(CompletableFuture.runAsync(() -> worker.accept(share), lanes[i]));
+            }
+        }
+
+        try {
+            CompletableFuture.allOf(running.toArray(new CompletableFuture[0])).join();
+        } catch (CompletionException e) {
+            if (e.getCause() instanceof RuntimeException cause) {
+                throw cause;
+            }
+            throw e;
+        }
+    }
+
+    private int laneOf(Long eventId) {
+        return eventId == null ? 0 : Math.floorMod(Long.hashCode(eventId), lanes.length);
+    }
+
+    @PreDestroy
+    public void shutdown() {
+        for (ExecutorService lane : lanes) {
+            lane.shutdown();
+        }
+    }
+}
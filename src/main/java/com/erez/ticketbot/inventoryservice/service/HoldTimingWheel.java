@@ -0,0 +1,165 @@
+package com.erez.ticketbot.inventoryservice.service;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Hierarchical timing wheel for reservation holds.
+ * Time is counted in ticks of tickMs; level L has wheelSize slots of wheelSize^L ticks each.
+ * A timer sits in the level of the highest tick digit in which it differs from the current tick,
+ * and is cascaded one level down when the wheel reaches its slot, so schedule and cancel are O(1)
+ * and every timer is touched at most once per level before it fires.
+ * Timers beyond the top level's span wait in the top level and are re-placed on each of its turns.
+ * Not thread safe on its own; ReservationHolds guards it with a single lock.
+ */
+final class HoldTimingWheel {
+
+    private final long tickMs;
+    private final int bits;
+    private final int mask;
+    private final Timer[][] levels;
+    private final Map<String, Timer> timers = new HashMap<>();
+    private long currentTick;
+
+    HoldTimingWheel(long tickMs, int wheelSize, int levelCount, long nowMs) {
+        if (tickMs <= 0 || wheelSize < 2 || Integer.bitCount(wheelSize) != 1 || levelCount < 1
+                || (long) Integer.numberOfTrailingZeros(wheelSize) * levelCount > 62) {
+            throw new IllegalArgumentException(String.format(
+                    "Invalid timing wheel: tick %d ms, %d slots (power of two), %d levels",
+                    tickMs, wheelSize, levelCount));
+        }
+        this.tickMs = tickMs;
+        this.bits = Integer.numberOfTrailingZeros(wheelSize);
+        this.mask = wheelSize - 1;
+        this.levels = new Timer[levelCount][wheelSize];
+        for (Timer[] level : levels) {
+            for (int slot = 0; slot < wheelSize; slot++) {
+                level[slot] = Timer.sentinel();
+            }
+        }
+        this.currentTick = nowMs / tickMs;
+    }
+
+    /**
+     * Schedules (or reschedules) the hold of reservationId. A hold already due fires on the next advance.
+     */
+    void schedule(String reservationId, Long eventId, long expiresAtMs) {
+        cancel(reservationId);
+        // Round up so a hold never fires before its expiry
+        long tick = Math.max(Math.floorDiv(expiresAtMs + tickMs - 1, tickMs), currentTick + 1);
+        Timer timer = new Timer(reservationId, eventId, tick);
+        timers.put(reservationId, timer);
+        place(timer, null);
+    }
+
+    boolean cancel(String reservationId) {
+        Timer timer = timers.remove(reservationId);
+        if (timer == null) {
+            return false;
+        }
+        timer.unlink();
+        return true;
+    }
+
+    /**
+     * Moves the wheel up to nowMs and returns the holds that expired on the way, in expiry order.
+     */
+    List<Expired> advance(long nowMs) {
+        long target = nowMs / tickMs;
+        List<Expired> expired = new ArrayList<>();
+        while (currentTick < target) {
+            currentTick++;
+            // Higher levels first, so their timers can land in the lower slots cascaded right after
+            for (int level = levels.length - 1; level > 0; level--) {
+                if ((currentTick & ((1L << (bits * level)) - 1)) == 0) {
+                    cascade(levels[level][slot(currentTick, level)], expired);
+                }
+            }
+            Timer head = levels[0][slot(currentTick, 0)];
+            for (Timer timer = head.next; timer != head; timer = head.next) {
+                timer.unlink();
+                fire(timer, expired);
+            }
+        }
+        return expired;
+    }
+
+    int size() {
+        return timers.size();
+    }
+
+    private void cascade(Timer head, List<Expired> expired) {
+        // Detach the slot first: a timer beyond the top span may go right back into it
+        Timer first = head.next;
+        if (first == head) {
+            return;
+        }
+        head.prev.next = null;
+        head.next = head;
+        head.prev = head;
+        for (Timer timer = first, next; timer != null; timer = next) {
+            next = timer.next;
+            timer.prev = timer;
+            timer.next = timer;
+            place(timer, expired);
+        }
+    }
+
+    private void place(Timer timer, List<Expired> expired) {
+        if (timer.tick <= currentTick && expired != null) {
+            fire(timer, expired);
+            return;
+        }
+        long differing = timer.tick ^ currentTick;
+        int level = Math.min((63 - Long.numberOfLeadingZeros(differing)) / bits, levels.length - 1);
+        timer.linkBefore(levels[level][slot(timer.tick, level)]);
+    }
+
+    private void fire(Timer timer, List<Expired> expired) {
+        timers.remove(timer.reservationId);
+        expired.add(new Expired(timer.reservationId, timer.eventId));
+    }
+
+    private int slot(long tick, int level) {
+        return (int) ((tick >>> (bits * level)) & mask);
+    }
+
+    record Expired(String reservationId, Long eventId) {
+    }
+
+    // Node of a slot's circular doubly linked list; each slot has a sentinel head
+    private static final class Timer {
+
+        private final String reservationId;
+        private final Long eventId;
+        private final long tick;
+        private Timer prev = this;
+        private Timer next = this;
+
+        private Timer(String reservationId, Long eventId, long tick) {
+            this.reservationId = reservationId;
+            this.eventId = eventId;
+            this.tick = tick;
+        }
+
+        private static Timer sentinel() {
+            return new Timer(null, null, Long.MAX_VALUE);
+        }
+
+        private void linkBefore(Timer head) {
+            prev = head.prev;
+            next = head;
+            head.prev.next = this;
+            head.prev = this;
+        }
+
+        private void unlink() {
+            prev.next = next;
+            next.prev = prev;
+            prev = this;
+            next = this;
+        }
+    }
+}
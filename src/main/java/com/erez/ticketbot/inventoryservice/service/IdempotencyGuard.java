@@ -0,0 +1,92 @@
+package com.erez.ticketbot.inventoryservice.service;
+
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * In-memory front for the transactionId idempotency check.
+ * A bounded set of recently committed ids answers the common redelivery case without Mongo,
+ * and a Bloom filter of every id this node has tried to insert tells which ids are definitely new.
+ * Definitely-new ids skip the lookup and go straight to an insert, where the unique
+ * transactionId index remains the authority: a DuplicateKeyException means "already processed".
+ */
+@Component
+public class IdempotencyGuard {
+
+    public enum Verdict {
+        // Committed by this node recently
+        DUPLICATE,
+        // Seen by the filter, or too old to tell: ask Mongo
+        POSSIBLE_DUPLICATE,
+        // Never seen by this node; the unique index still guards the insert
+        NEW
+    }
+
+    private final Cache<String, Boolean> recent;
+    private final long generationSize;
+    private final double falsePositiveRate;
+    private final AtomicLong generationInsertions = new AtomicLong();
+    private volatile TransactionIdFilter current;
+    private volatile TransactionIdFilter previous;
+
+    @Autowired
+    public IdempotencyGuard(@Value("${inventory.idempotency.recent-size:100000}") long recentSize,
+                            @Value("${inventory.idempotency.filter.expected-insertions:1000000}") long generationSize,
+                            @Value("${inventory.idempotency.filter.false-positive-rate:0.01}") double falsePositiveRate) {
+        this.recent = Caffeine.newBuilder().maximumSize(recentSize).build();
+        this.generationSize = generationSize;
+        this.falsePositiveRate = falsePositiveRate;
+        this.current = new TransactionIdFilter(generationSize, falsePositiveRate);
+        this.previous = new TransactionIdFilter(1, falsePositiveRate);
+    }
+
+    public Verdict check(String transactionId) {
+        if (recent.getIfPresent(transactionId) != null) {
+            return Verdict.DUPLICATE;
+        }
+        if (current.mightContain(transactionId) || previous.mightContain(transactionId)) {
+            return Verdict.POSSIBLE_DUPLICATE;
+        }
+        return Verdict.NEW;
+    }
+
+    /**
+     * Call before inserting the reservation for transactionId. The filter learns the id at once
+     * (a false "maybe" only costs a lookup); the recent set only after the transaction commits,
+     * so a rolled back booking is never skipped on redelivery.
+     */
+    public void record(String transactionId) {
+        filter().add(transactionId);
+        if (TransactionSynchronizationManager.isSynchronizationActive()) {
+            TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+                @Override
+                public void afterCommit() {
+                    recent.put(transactionId, Boolean.TRUE);
+                }
+            });
+        } else {
+            recent.put(transactionId, Boolean.TRUE);
+        }
+    }
+
+    // Two generations keep the false positive rate bounded without ever forgetting the last generationSize ids
+    private TransactionIdFilter filter() {
+        if (generationInsertions.incrementAndGet() > generationSize) {
+            synchronized (this) {
+                if (generationInsertions.get() > generationSize) {
+                    previous = current;
+                    current = new TransactionIdFilter(generationSize, falsePositiveRate);
+                    generationInsertions.set(1);
+                }
+            }
+        }
+        return current;
+    }
+}
@@ -0,0 +1,121 @@
+package com.erez.ticketbot.inventoryservice.service;
+
+import com.erez.ticketbot.inventoryservice.entity.OutboxMessage;
+import com.erez.ticketbot.inventoryservice.event.EventTypeFilteringDeserializer;
+import com.erez.ticketbot.inventoryservice.event.InventoryEvent;
+import com.erez.ticketbot.inventoryservice.repository.OutboxRepository;
+import org.apache.kafka.clients.producer.ProducerRecord;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.kafka.core.KafkaTemplate;
+import org.springframework.kafka.support.SendResult;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+import java.nio.charset.StandardCharsets;
+import java.time.LocalDateTime;
+import java.util.EnumMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+
+/**
+ * Publishes saga results to inventory-events.
+ * Records are keyed by eventId so everything about one event lands on one partition, in order,
+ * and carry the event type as a header so consumers can filter without deserializing.
+ * With inventory.outbox.enabled events are written to the outbox inside the caller's transaction
+ * and OutboxRelay sends them; otherwise they are sent directly, after the transaction commits.
+ */
+@Component
+public class InventoryEventPublisher {
+
+    public static final String TOPIC = "inventory-events";
+    public static final String OUTBOX_ID_HEADER = "inventory-outbox-id";
+
+    private static final Map<InventoryEvent.EventType, byte[]> EVENT_TYPE_HEADERS =
+            new EnumMap<>(InventoryEvent.EventType.class);
+
+    static {
+        for (InventoryEvent.EventType type : InventoryEvent.EventType.values()) {
+            EVENT_TYPE_HEADERS.put(type, type.name().getBytes(StandardCharsets.UTF_8));
+        }
+    }
+
+    private final KafkaTemplate<String, InventoryEvent> kafkaTemplate;
+    private final InventoryMetrics metrics;
+    private final OutboxRepository outboxRepository;
+    private final boolean outboxEnabled;
+
+    @Autowired
+    public InventoryEventPublisher(KafkaTemplate<String, InventoryEvent> kafkaTemplate,
+                                   InventoryMetrics metrics,
+                                   OutboxRepository outboxRepository,
+                                   @Value("${inventory.outbox.enabled:false}") boolean outboxEnabled) {
+        this.kafkaTemplate = kafkaTemplate;
+        this.metrics = metrics;
+        this.outboxRepository = outboxRepository;
+        this.outboxEnabled = outboxEnabled;
+    }
+
+    public void publish(InventoryEvent event) {
+        publish(event.eventId(), event);
+    }
+
+    public void publish(Long eventId, InventoryEvent event) {
+        if (outboxEnabled) {
+            outboxRepository.insert(outboxMessage(eventId, event));
+        } else {
+            afterCommit(() -> send(eventId, event, null));
+        }
+    }
+
+    // One bulk outbox insert for a whole batch of results, each keyed by its own eventId
+    public void publishAll(List<InventoryEvent> events) {
+        if (events.isEmpty()) {
+            return;
+        }
+        if (outboxEnabled) {
+            outboxRepository.insert(events.stream().map(event -> outboxMessage(event.eventId(), event)).toList());
+        } else {
+            afterCommit(() -> events.forEach(event -> send(event.eventId(), event, null)));
+        }
+    }
+
+    // KAFKA_PUBLISH covers send until broker acknowledgement, not just handing the record to the producer
+    public CompletableFuture<SendResult<String, InventoryEvent>> send(Long eventId, InventoryEvent event, String outboxId) {
+        final long start = System.nanoTime();
+        ProducerRecord<String, InventoryEvent> record =
+                new ProducerRecord<>(TOPIC, eventId == null ? null : eventId.toString(), event);
+        record.headers().add(EventTypeFilteringDeserializer.EVENT_TYPE_HEADER, EVENT_TYPE_HEADERS.get(event.eventType()));
+        if (outboxId != null) {
+            record.headers().add(OUTBOX_ID_HEADER, outboxId.getBytes(StandardCharsets.UTF_8));
+        }
+        CompletableFuture<SendResult<String, InventoryEvent>> result = kafkaTemplate.send(record);
+        result.whenComplete((sent, ex) -> metrics.recordElapsed(InventoryMetrics.Stage.KAFKA_PUBLISH, start));
+        metrics.eventPublished(event.eventType());
+        return result;
+    }
+
+    // Never send from inside a transaction: a rollback cannot unsend, and a slow broker would hold it open
+    private static void afterCommit(Runnable send) {
+        if (!TransactionSynchronizationManager.isSynchronizationActive()) {
+            send.run();
+            return;
+        }
+        TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+            @Override
+            public void afterCommit() {
+                send.run();
+            }
+        });
+    }
+
+    private static OutboxMessage outboxMessage(Long eventId, InventoryEvent event) {
+        return OutboxMessage.builder()
+                .eventId(eventId)
+                .payload(event)
+                .createdAt(LocalDateTime.now())
+                .build();
+    }
+}
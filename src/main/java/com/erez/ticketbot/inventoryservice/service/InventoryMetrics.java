@@ -0,0 +1,132 @@
+package com.erez.ticketbot.inventoryservice.service;
+
+import com.erez.ticketbot.inventoryservice.entity.Reservation;
+import com.erez.ticketbot.inventoryservice.event.InventoryEvent;
+import com.erez.ticketbot.inventoryservice.repository.ReservationRepository;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import io.micrometer.core.instrument.binder.MeterBinder;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import java.util.EnumMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.TimeUnit;
+import java.util.function.Supplier;
+
+/**
+ * Micrometer instrumentation for the reservation saga.
+ * inventory.saga.stage      - timer per saga stage, with percentile histograms
+ * inventory.events          - InventoryEvents consumed (direction=in) and published (direction=out) by type
+ * inventory.reservations    - reservations written by resulting status
+ * inventory.listener.lag    - time between a record being produced and this service picking it up
+ * inventory.reservations.active - RESERVED reservations, queried on scrape
+ */
+@Component
+public class InventoryMetrics implements MeterBinder {
+
+    private static final String BOOKING_TOPIC = "booking-events";
+
+    public enum Stage {
+        IDEMPOTENCY_CHECK,
+        RESERVATION_LOOKUP,
+        CAPACITY_UPDATE,
+        RESERVATION_WRITE,
+        KAFKA_PUBLISH
+    }
+
+    private final MeterRegistry registry;
+    private final ReservationRepository reservationRepository;
+    private final Map<Stage, Timer> stageTimers = new EnumMap<>(Stage.class);
+    private final Map<InventoryEvent.EventType, Counter> consumed = new EnumMap<>(InventoryEvent.EventType.class);
+    private final Map<InventoryEvent.EventType, Counter> published = new EnumMap<>(InventoryEvent.EventType.class);
+    private final Map<Reservation.ReservationStatus, Counter> reservations =
+            new EnumMap<>(Reservation.ReservationStatus.class);
+    // By topic; the consumed topics are registered up front, so a record only pays a map lookup
+    private final Map<String, Timer> listenerLag = new ConcurrentHashMap<>();
+
+    @Autowired
+    public InventoryMetrics(MeterRegistry registry,
+                            ReservationRepository reservationRepository,
+                            @Value("${inventory.kafka.compensation-topics:inventory-events}") List<String> compensationTopics) {
+        this.registry = registry;
+        this.reservationRepository = reservationRepository;
+
+        listenerLag.put(BOOKING_TOPIC, lagTimer(BOOKING_TOPIC));
+        compensationTopics.forEach(topic -> listenerLag.put(topic, lagTimer(topic)));
+
+        for (Stage stage : Stage.values()) {
+            stageTimers.put(stage, Timer.builder("inventory.saga.stage")
+                    .tag("stage", stage.name().toLowerCase())
+                    .publishPercentileHistogram()
+                    .register(registry));
+        }
+        for (InventoryEvent.EventType type : InventoryEvent.EventType.values()) {
+            consumed.put(type, eventCounter(type, "in"));
+            published.put(type, eventCounter(type, "out"));
+        }
+        for (Reservation.ReservationStatus status : Reservation.ReservationStatus.values()) {
+            reservations.put(status, Counter.builder("inventory.reservations")
+                    .tag("status", status.name())
+                    .register(registry));
+        }
+    }
+
+    @Override
+    public void bindTo(MeterRegistry meterRegistry) {
+        Gauge.builder("inventory.reservations.active", reservationRepository,
+                        ReservationRepository::countActiveReservations)
+                .description("Reservations in RESERVED state")
+                .register(meterRegistry);
+    }
+
+    public <T> T time(Stage stage, Supplier<T> work) {
+        return stageTimers.get(stage).record(work);
+    }
+
+    public void time(Stage stage, Runnable work) {
+        stageTimers.get(stage).record(work);
+    }
+
+    public void recordElapsed(Stage stage, long startNanos) {
+        stageTimers.get(stage).record(System.nanoTime() - startNanos, TimeUnit.NANOSECONDS);
+    }
+
+    public void eventConsumed(InventoryEvent.EventType type) {
+        consumed.get(type).increment();
+    }
+
+    public void eventPublished(InventoryEvent.EventType type) {
+        published.get(type).increment();
+    }
+
+    public void reservationWritten(Reservation.ReservationStatus status) {
+        reservations.get(status).increment();
+    }
+
+    public void listenerLag(String topic, long recordTimestamp) {
+        long lagMillis = System.currentTimeMillis() - recordTimestamp;
+        if (lagMillis >= 0) {
+            listenerLag.computeIfAbsent(topic, this::lagTimer).record(lagMillis, TimeUnit.MILLISECONDS);
+        }
+    }
+
+    private Timer lagTimer(String topic) {
+        return Timer.builder("inventory.listener.lag")
+                .tag("topic", topic)
+                .publishPercentileHistogram()
+                .register(registry);
+    }
+
+    private Counter eventCounter(InventoryEvent.EventType type, String direction) {
+        return Counter.builder("inventory.events")
+                .tag("type", type.name())
+                .tag("direction", direction)
+                .register(registry);
+    }
+}
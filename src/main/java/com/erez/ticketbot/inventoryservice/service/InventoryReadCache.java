@@ -0,0 +1,104 @@
+package com.erez.ticketbot.inventoryservice.service;
+
+import com.erez.ticketbot.inventoryservice.entity.Event;
+import com.erez.ticketbot.inventoryservice.entity.Venue;
+import com.erez.ticketbot.inventoryservice.response.CacheStatsResponse;
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import com.github.benmanes.caffeine.cache.stats.CacheStats;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.binder.MeterBinder;
+import io.micrometer.core.instrument.binder.cache.CaffeineCacheMetrics;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import java.time.Duration;
+import java.util.List;
+import java.util.Optional;
+import java.util.function.Function;
+import java.util.function.Supplier;
+
+/**
+ * Bounded read-through cache in front of EventRepository/VenueRepository reads.
+ * Entries expire after inventory.cache.ttl-ms, which bounds how stale a capacity read can be;
+ * capacity changes made by this node are applied to cached events in place once they commit.
+ * Cache statistics are also published as Micrometer cache.* meters.
+ */
+@Component
+public class InventoryReadCache implements MeterBinder {
+
+    private static final String ALL_EVENTS = "all";
+
+    private final Cache<Long, Event> events;
+    private final Cache<Long, Venue> venues;
+    private final Cache<String, List<Event>> allEvents;
+
+    @Autowired
+    public InventoryReadCache(@Value("${inventory.cache.max-events:10000}") long maxEvents,
+                              @Value("${inventory.cache.max-venues:1000}") long maxVenues,
+                              @Value("${inventory.cache.ttl-ms:1000}") long ttlMs) {
+        Duration ttl = Duration.ofMillis(ttlMs);
+        this.events = Caffeine.newBuilder().maximumSize(maxEvents).expireAfterWrite(ttl).recordStats().build();
+        this.venues = Caffeine.newBuilder().maximumSize(maxVenues).expireAfterWrite(ttl).recordStats().build();
+        this.allEvents = Caffeine.newBuilder().maximumSize(1).expireAfterWrite(ttl).recordStats().build();
+    }
+
+    // Misses are not cached, so an unknown id always goes to the loader
+    public Optional<Event> event(Long eventId, Function<Long, Optional<Event>> loader) {
+        return Optional.ofNullable(events.get(eventId, id -> loader.apply(id).orElse(null)));
+    }
+
+    public Optional<Venue> venue(Long venueId, Function<Long, Optional<Venue>> loader) {
+        return Optional.ofNullable(venues.get(venueId, id -> loader.apply(id).orElse(null)));
+    }
+
+    /**
+     * The cached listing is refreshed only by TTL; callers overlay per-event capacity
+     * from {@link #cachedEvent(Long)} so in-place updates show up in the listing too.
+     */
+    public List<Event> allEvents(Supplier<List<Event>> loader) {
+        return allEvents.get(ALL_EVENTS, key -> List.copyOf(loader.get()));
+    }
+
+    public Event cachedEvent(Long eventId) {
+        return events.getIfPresent(eventId);
+    }
+
+    // Cached entries are replaced, never mutated, so readers always see a consistent Event
+    public void updateCapacity(Long eventId, Long leftCapacity) {
+        events.asMap().computeIfPresent(eventId,
+                (id, event) -> event.toBuilder().leftCapacity(leftCapacity).build());
+    }
+
+    public void invalidateEvent(Long eventId) {
+        events.invalidate(eventId);
+        allEvents.invalidateAll();
+    }
+
+    @Override
+    public void bindTo(MeterRegistry registry) {
+        CaffeineCacheMetrics.monitor(registry, events, "inventory.events");
+        CaffeineCacheMetrics.monitor(registry, venues, "inventory.venues");
+        CaffeineCacheMetrics.monitor(registry, allEvents, "inventory.allEvents");
+    }
+
+    public List<CacheStatsResponse> stats() {
+        return List.of(
+                stats("events", events),
+                stats("venues", venues),
+                stats("allEvents", allEvents));
+    }
+
+    private static CacheStatsResponse stats(String name, Cache<?, ?> cache) {
+        CacheStats stats = cache.stats();
+        return CacheStatsResponse.builder()
+                .cache(name)
+                .size(cache.estimatedSize())
+                .hits(stats.hitCount())
+                .misses(stats.missCount())
+                .evictions(stats.evictionCount())
+                .hitRate(stats.hitRate())
+                .build();
+    }
+}
@@ -1,5 +1,8 @@
 package com.erez.ticketbot.inventoryservice.service;
 
+import com.erez.ticketbot.inventoryservice.dto.BatchReservationRequest;
+import com.erez.ticketbot.inventoryservice.dto.CapacityUpdateResult;
+import com.erez.ticketbot.inventoryservice.dto.SeatReservationRequest;
 import com.erez.ticketbot.inventoryservice.entity.Event;
 import com.erez.ticketbot.inventoryservice.entity.Reservation;
 import com.erez.ticketbot.inventoryservice.entity.Venue;
@@ -7,54 +10,159 @@ import com.erez.ticketbot.inventoryservice.event.InventoryEvent;
 import com.erez.ticketbot.inventoryservice.repository.EventRepository;
 import com.erez.ticketbot.inventoryservice.repository.ReservationRepository;
 import com.erez.ticketbot.inventoryservice.repository.VenueRepository;
+import com.erez.ticketbot.inventoryservice.response.BatchReservationResponse;
+import com.erez.ticketbot.inventoryservice.response.CacheStatsResponse;
 import com.erez.ticketbot.inventoryservice.response.EventInventoryResponse;
+import com.erez.ticketbot.inventoryservice.response.EventPageResponse;
+import com.erez.ticketbot.inventoryservice.response.SeatReservationResponse;
+import com.erez.ticketbot.inventoryservice.response.SectionAvailabilityResponse;
 import com.erez.ticketbot.inventoryservice.response.VenueInventoryResponse;
+import com.mongodb.MongoException;
 import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.ObjectProvider;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.dao.ConcurrencyFailureException;
+import org.springframework.dao.DuplicateKeyException;
+import org.springframework.http.HttpStatus;
 import org.springframework.kafka.annotation.KafkaListener;
-import org.springframework.kafka.core.KafkaTemplate;
+import org.springframework.kafka.support.KafkaHeaders;
+import org.springframework.messaging.handler.annotation.Header;
 import org.springframework.stereotype.Service;
+import org.springframework.transaction.PlatformTransactionManager;
 import org.springframework.transaction.annotation.Transactional;
+import org.springframework.transaction.support.TransactionTemplate;
+import org.springframework.web.server.ResponseStatusException;
+import tools.jackson.databind.json.JsonMapper;
 
+import java.io.IOException;
+import java.io.OutputStream;
 import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
 import java.util.List;
+import java.util.Map;
+import java.util.Set;
 import java.util.stream.Collectors;
+import java.util.stream.Stream;
 
 
 @Slf4j
 @Service
 public class InventoryService {
 
+    private static final int WRITE_CONFLICT = 112;
+
     private final EventRepository eventRepository;
     private final VenueRepository venueRepository;
     private final ReservationRepository reservationRepository;
-    private final KafkaTemplate<String, InventoryEvent> kafkaTemplate;
+    private final CapacityService capacityService;
+    private final InventoryReadCache readCache;
+    private final InventoryMetrics metrics;
+    private final IdempotencyGuard idempotency;
+    private final InventoryEventPublisher publisher;
+    private final SeatService seatService;
+    private final EventInventoryView inventoryView;
+    private final ReservationHolds holds;
+    private final ReservationArchive archive;
+    private final EventAdmission admission;
+    // The application's mapper, so NDJSON lines match the JSON the controllers write
+    private final JsonMapper jsonMapper;
+    private final TransactionTemplate transactionTemplate;
+    private final int maxPageSize;
+    private final int maxBatchReservations;
+    private final int maxSeatAttempts;
 
     @Autowired
     public InventoryService(EventRepository eventRepository,
                             VenueRepository venueRepository,
                             ReservationRepository reservationRepository,
-                            KafkaTemplate<String, InventoryEvent> kafkaTemplate) {
+                            CapacityService capacityService,
+                            InventoryReadCache readCache,
+                            InventoryMetrics metrics,
+                            IdempotencyGuard idempotency,
+                            InventoryEventPublisher publisher,
+                            SeatService seatService,
+                            EventInventoryView inventoryView,
+                            ObjectProvider<ReservationHolds> holds,
+                            ObjectProvider<ReservationArchive> archive,
+                            EventAdmission admission,
+                            JsonMapper jsonMapper,
+                            PlatformTransactionManager transactionManager,
+                            @Value("${inventory.events.page.max-size:500}") int maxPageSize,
+                            @Value("${inventory.reservations.batch.max-size:1000}") int maxBatchReservations,
+                            @Value("${inventory.seats.max-claim-attempts:8}") int maxSeatAttempts) {
         this.eventRepository = eventRepository;
         this.venueRepository = venueRepository;
         this.reservationRepository = reservationRepository;
-        this.kafkaTemplate = kafkaTemplate;
+        this.capacityService = capacityService;
+        this.readCache = readCache;
+        this.metrics = metrics;
+        this.idempotency = idempotency;
+        this.publisher = publisher;
+        this.seatService = seatService;
+        this.inventoryView = inventoryView;
+        this.holds = holds.getIfAvailable();
+        this.archive = archive.getIfAvailable();
+        this.admission = admission;
+        this.jsonMapper = jsonMapper;
+        this.transactionTemplate = new TransactionTemplate(transactionManager);
+        this.maxPageSize = maxPageSize;
+        this.maxBatchReservations = maxBatchReservations;
+        this.maxSeatAttempts = Math.max(1, maxSeatAttempts);
     }
 
 
     public List<EventInventoryResponse> getAllEvents() {
-        final List<Event> events = this.eventRepository.findAll();
+        final List<Event> events = readCache.allEvents(this.eventRepository::findAll);
 
         return events.stream().map(event -> EventInventoryResponse.builder()
                 .event(event.getName())
-                .capacity(event.getLeftCapacity())
+                .capacity(capacityService.leftCapacity(latest(event)))
                 .venue(event.getVenue())
                 .build()).collect(Collectors.toList());
     }
 
 
+    // Pre-serialized getAllEvents body, see EventInventoryView
+    public byte[] getAllEventsJson() {
+        return inventoryView.allEventsJson();
+    }
+
+
+    /**
+     * Keyset page of the catalog: events with id greater than the cursor, ordered by id.
+     */
+    public EventPageResponse getEventsPage(Long afterEventId, int limit) {
+        final int pageSize = Math.max(1, Math.min(limit, maxPageSize));
+        final List<Event> events = this.eventRepository.findInventoryPage(afterEventId, pageSize);
+
+        return EventPageResponse.builder()
+                .events(events.stream().map(this::toInventoryResponse).collect(Collectors.toList()))
+                .nextCursor(events.size() == pageSize ? events.get(events.size() - 1).getId() : null)
+                .build();
+    }
+
+    /**
+     * Writes the whole catalog as NDJSON straight from a Mongo cursor, one event per line,
+     * so memory use does not depend on the number of events.
+     */
+    public void streamEvents(OutputStream out) throws IOException {
+        try (Stream<Event> events = this.eventRepository.streamInventory()) {
+            final Iterator<Event> iterator = events.iterator();
+            while (iterator.hasNext()) {
+                out.write(jsonMapper.writeValueAsBytes(toInventoryResponse(iterator.next())));
+                out.write('\n');
+            }
+        }
+        out.flush();
+    }
+
+
     public VenueInventoryResponse getVenueInformation(Long venueId) {
-        final Venue venue = venueRepository.findById(venueId)
+        final Venue venue = readCache.venue(venueId, venueRepository::findById)
                 .orElseThrow(() -> new RuntimeException("Venue not found: " + venueId));
 
         return VenueInventoryResponse.builder()
@@ -66,12 +174,21 @@ public class InventoryService {
 
 
     public EventInventoryResponse getEventInventory(Long eventId) {
-        final Event event = this.eventRepository.findById(eventId)
+        final Event event = readCache.event(eventId, this.eventRepository::findById)
                 .orElseThrow(() -> new RuntimeException("Event not found: " + eventId));
 
+        return toInventoryResponse(event);
+    }
+
+    // Pre-serialized getEventInventory body, see EventInventoryView
+    public byte[] getEventInventoryJson(Long eventId) {
+        return inventoryView.eventJson(eventId);
+    }
+
+    private EventInventoryResponse toInventoryResponse(Event event) {
         return EventInventoryResponse.builder()
                 .event(event.getName())
-                .capacity(event.getLeftCapacity())
+                .capacity(capacityService.leftCapacity(latest(event)))
                 .venue(event.getVenue())
                 .ticketPrice(event.getTicketPrice())
                 .eventId(event.getId())
@@ -79,21 +196,40 @@ public class InventoryService {
     }
 
 
-    @Transactional
-    public void updateEventCapacity(final Long eventId, final Long ticketsBooked) {
-        final Event event = this.eventRepository.findById(eventId)
-                .orElseThrow(() -> new RuntimeException("Event not found: " + eventId));
+    public List<CacheStatsResponse> getCacheStats() {
+        return readCache.stats();
+    }
+
+    // The listing is cached as a whole; prefer the per-event entry, which sees capacity updates in place
+    private Event latest(Event event) {
+        final Event cached = readCache.cachedEvent(event.getId());
+        return cached != null ? cached : event;
+    }
 
-        event.setLeftCapacity(event.getLeftCapacity() - ticketsBooked);
-        eventRepository.save(event);  // MongoDB: save() is sufficient
+
+    public void updateEventCapacity(final Long eventId, final Long ticketsBooked) {
+        // Single conditional $inc: concurrent admin updates and bookings can no longer overwrite each other
+        final CapacityUpdateResult result = ticketsBooked >= 0
+                ? capacityService.reserve(eventId, ticketsBooked)
+                : capacityService.release(eventId, -ticketsBooked);
+        requireUpdated(result, eventId, ticketsBooked);
 
         log.info("Event capacity updated. Event ID: {}, New left capacity: {}",
-                eventId, event.getLeftCapacity());
+                eventId, result.leftCapacity());
     }
 
 
-    @KafkaListener(topics = "booking-events", groupId = "inventory-service")
-    public void handleBookingEvent(InventoryEvent event) {
+    // Stays stopped when the batch listener (BookingBatchListener) owns booking-events.
+    // @Transactional here because calling reserveInventory directly bypasses the proxy,
+    // and the reservation, capacity change and outbox entry must commit together
+    @KafkaListener(topics = "booking-events", groupId = "inventory-service",
+            concurrency = "${inventory.kafka.booking-events.concurrency:1}",
+            autoStartup = "#{!${inventory.booking.batch.enabled:false}}")
+    @Transactional
+    public void handleBookingEvent(InventoryEvent event,
+                                   @Header(KafkaHeaders.RECEIVED_TIMESTAMP) long timestamp) {
+        metrics.listenerLag("booking-events", timestamp);
+        metrics.eventConsumed(event.eventType());
         if (event.eventType() == InventoryEvent.EventType.BOOKING_VALIDATED) {
             reserveInventory(event);
         }
@@ -104,99 +240,510 @@ public class InventoryService {
         log.info("Reserving inventory for transaction: {}", bookingEvent.transactionId());
 
         try {
-            // Idempotency check: prevent duplicate reservations
-            if (reservationRepository.existsByTransactionId(bookingEvent.transactionId())) {
+            // Idempotency check: in memory first, Mongo only for ids this node may have seen
+            if (isAlreadyProcessed(bookingEvent.transactionId())) {
                 log.warn("Reservation already exists for transaction: {}, skipping",
                         bookingEvent.transactionId());
                 return;
             }
 
-            // Find event and validate capacity
-            Event event = eventRepository.findById(bookingEvent.eventId())
-                    .orElseThrow(() -> new RuntimeException("Event not found: " + bookingEvent.eventId()));
+            // Known sold out: rejected in memory, no capacity update. The FAILED reservation is the
+            // same audit trail the batch path writes, and keeps a redelivery from being published twice
+            String soldOut = admission.soldOutRejection(bookingEvent.eventId(), bookingEvent.ticketCount());
+            if (soldOut != null) {
+                try {
+                    insertReservation(failedReservation(bookingEvent, soldOut));
+                } catch (DuplicateKeyException duplicate) {
+                    log.warn("Reservation already exists for transaction: {}, skipping",
+                            bookingEvent.transactionId());
+                    return;
+                }
+                publisher.publish(failedEvent(bookingEvent, soldOut));
+                return;
+            }
 
-            if (event.getLeftCapacity() < bookingEvent.ticketCount()) {
-                throw new RuntimeException(
-                        String.format("Insufficient capacity. Available: %d, Requested: %d",
-                                event.getLeftCapacity(), bookingEvent.ticketCount())
-                );
+            // Reserve inventory - one conditional decrement, guarded by leftCapacity >= ticketCount
+            CapacityUpdateResult capacity;
+            try (EventAdmission.Permit permit = admission.enter(bookingEvent.eventId())) {
+                capacity = metrics.time(InventoryMetrics.Stage.CAPACITY_UPDATE,
+                        () -> capacityService.reserve(bookingEvent.eventId(), bookingEvent.ticketCount(),
+                                bookingEvent.transactionId()));
             }
+            requireUpdated(capacity, bookingEvent.eventId(), bookingEvent.ticketCount());
 
             // Store original capacity for compensation
-            Long originalCapacity = event.getLeftCapacity();
-
-            // Reserve inventory - update event capacity
-            event.setLeftCapacity(event.getLeftCapacity() - bookingEvent.ticketCount());
-            eventRepository.save(event);
-
-            // PRODUCTION: Persist reservation to MongoDB for compensation tracking
-            Reservation reservation = Reservation.builder()
-                    .transactionId(bookingEvent.transactionId())
-                    .eventId(bookingEvent.eventId())
-                    .userId(bookingEvent.userId())
-                    .ticketCount(bookingEvent.ticketCount())
-                    .originalCapacity(originalCapacity)
-                    .status(Reservation.ReservationStatus.RESERVED)
-                    .createdAt(LocalDateTime.now())
-                    .build();
+            Long originalCapacity = capacity.leftCapacity() + bookingEvent.ticketCount();
 
-            reservationRepository.save(reservation);
+            // PRODUCTION: Persist reservation to MongoDB for compensation tracking.
+            // The unique transactionId index is the final idempotency guard.
+            try {
+                insertReservation(reservedReservation(bookingEvent, originalCapacity, capacity.shard()));
+            } catch (DuplicateKeyException duplicate) {
+                log.warn("Reservation already exists for transaction: {}, skipping",
+                        bookingEvent.transactionId());
+                capacityService.cancelReservation(bookingEvent.eventId(), bookingEvent.ticketCount(), capacity.shard());
+                return;
+            }
 
             log.info("Reserved {} tickets for event {}. New capacity: {}. Reservation persisted to MongoDB.",
-                    bookingEvent.ticketCount(), bookingEvent.eventId(), event.getLeftCapacity());
+                    bookingEvent.ticketCount(), bookingEvent.eventId(), capacity.leftCapacity());
 
             // Publish INVENTORY_RESERVED event for OrderService
-            InventoryEvent inventoryReserved = new InventoryEvent(
-                    bookingEvent.transactionId(),
-                    bookingEvent.userId(),
-                    bookingEvent.eventId(),
-                    bookingEvent.ticketCount(),
-                    bookingEvent.totalPrice(),
-                    InventoryEvent.EventType.INVENTORY_RESERVED
-            );
-
-            kafkaTemplate.send("inventory-events", inventoryReserved);
+            publisher.publish(reservedEvent(bookingEvent));
             log.info("INVENTORY_RESERVED event published for transaction: {}", bookingEvent.transactionId());
 
+        } catch (EventBusyException busy) {
+            // Overload, not a verdict: nothing recorded, the listener's error handler redelivers
+            throw busy;
         } catch (Exception e) {
             log.error("Inventory reservation failed for transaction: {}", bookingEvent.transactionId(), e);
 
             // Save failed reservation for audit trail
             try {
-                Reservation failedReservation = Reservation.builder()
-                        .transactionId(bookingEvent.transactionId())
-                        .eventId(bookingEvent.eventId())
-                        .userId(bookingEvent.userId())
-                        .ticketCount(bookingEvent.ticketCount())
-                        .status(Reservation.ReservationStatus.FAILED)
-                        .errorMessage(e.getMessage())
-                        .createdAt(LocalDateTime.now())
-                        .build();
-
-                reservationRepository.save(failedReservation);
+                insertReservation(failedReservation(bookingEvent, e.getMessage()));
+            } catch (DuplicateKeyException duplicate) {
+                log.warn("Reservation already exists for transaction: {}, skipping",
+                        bookingEvent.transactionId());
+                return;
             } catch (Exception saveEx) {
                 log.error("Failed to save error reservation", saveEx);
             }
 
             // Publish failure event to trigger compensation
-            InventoryEvent failureEvent = InventoryEvent.failure(
-                    bookingEvent.transactionId(),
-                    bookingEvent.userId(),
-                    bookingEvent.eventId(),
-                    bookingEvent.ticketCount(),
-                    InventoryEvent.EventType.INVENTORY_RESERVATION_FAILED,
-                    e.getMessage()
-            );
+            publisher.publish(failedEvent(bookingEvent, e.getMessage()));
+        }
+    }
+
+    /**
+     * Batch variant of reserveInventory for one poll of booking-events.
+     * Bookings are grouped per event so each event costs one conditional capacity update,
+     * all reservations are written with one bulk insert, and the results are published together.
+     * Within a group bookings are decided in arrival order, exactly as the per-record path would.
+     *
+     * @return the INVENTORY_RESERVED / INVENTORY_RESERVATION_FAILED events that were published
+     */
+    @Transactional
+    public List<InventoryEvent> reserveInventoryBatch(List<InventoryEvent> bookingEvents) {
+        return reserveInventoryBatch(bookingEvents, false);
+    }
+
+    /**
+     * @param lookupAll look every transactionId up in Mongo, not only those this node's filter may
+     *                  have seen: for callers whose ids may have been processed before a restart or
+     *                  on another node (REST retries, a batch that hit the unique index)
+     */
+    @Transactional
+    public List<InventoryEvent> reserveInventoryBatch(List<InventoryEvent> bookingEvents, boolean lookupAll) {
+        // Keep arrival order, drop non-booking records and in-batch duplicates
+        Map<String, InventoryEvent> pending = new LinkedHashMap<>();
+        for (InventoryEvent bookingEvent : bookingEvents) {
+            if (bookingEvent.eventType() == InventoryEvent.EventType.BOOKING_VALIDATED) {
+                pending.putIfAbsent(bookingEvent.transactionId(), bookingEvent);
+            }
+        }
+        if (pending.isEmpty()) {
+            return List.of();
+        }
+
+        // Idempotency check: in memory first, then one lookup for the ids that may have been seen
+        List<String> possibleDuplicates = new ArrayList<>();
+        Iterator<String> transactionIds = pending.keySet().iterator();
+        while (transactionIds.hasNext()) {
+            String transactionId = transactionIds.next();
+            IdempotencyGuard.Verdict verdict = idempotency.check(transactionId);
+            if (verdict == IdempotencyGuard.Verdict.DUPLICATE) {
+                log.warn("Reservation already exists for transaction: {}, skipping", transactionId);
+                transactionIds.remove();
+            } else if (lookupAll || verdict == IdempotencyGuard.Verdict.POSSIBLE_DUPLICATE) {
+                possibleDuplicates.add(transactionId);
+            }
+        }
+        if (!possibleDuplicates.isEmpty()) {
+            metrics.time(InventoryMetrics.Stage.IDEMPOTENCY_CHECK,
+                            () -> reservationRepository.findByTransactionIdIn(possibleDuplicates))
+                    .forEach(existing -> {
+                        log.warn("Reservation already exists for transaction: {}, skipping",
+                                existing.getTransactionId());
+                        pending.remove(existing.getTransactionId());
+                    });
+        }
+        // Archived reservations are gone from Mongo and from the unique index, and after a restart
+        // the filter takes their ids for NEW, so every remaining id is checked against the archive
+        pending.keySet().removeIf(transactionId -> {
+            if (!isArchived(transactionId)) {
+                return false;
+            }
+            log.warn("Reservation already archived for transaction: {}, skipping", transactionId);
+            return true;
+        });
+
+        List<Reservation> reservations = new ArrayList<>(pending.size());
+        List<InventoryEvent> results = new ArrayList<>(pending.size());
+        Map<Long, List<InventoryEvent>> byEvent = new LinkedHashMap<>();
+
+        for (InventoryEvent bookingEvent : pending.values()) {
+            if (bookingEvent.eventId() == null || bookingEvent.ticketCount() == null) {
+                String error = "Invalid booking event: eventId and ticketCount are required";
+                reservations.add(failedReservation(bookingEvent, error));
+                results.add(failedEvent(bookingEvent, error));
+            } else {
+                byEvent.computeIfAbsent(bookingEvent.eventId(), id -> new ArrayList<>()).add(bookingEvent);
+            }
+        }
 
-            kafkaTemplate.send("inventory-events", failureEvent);
+        byEvent.forEach((eventId, group) -> reserveGroup(eventId, group, reservations, results));
+
+        // A DuplicateKeyException here rolls the batch back (an id this node's filter took for NEW,
+        // e.g. after a restart or rebalance); BookingBatchListener retries it once with lookupAll
+        if (!reservations.isEmpty()) {
+            reservations.forEach(reservation -> idempotency.record(reservation.getTransactionId()));
+            reservations.forEach(this::stampHold);
+            metrics.time(InventoryMetrics.Stage.RESERVATION_WRITE, () -> reservationRepository.insert(reservations));
+            reservations.forEach(reservation -> metrics.reservationWritten(reservation.getStatus()));
+            reservations.forEach(this::trackHold);
         }
+        publisher.publishAll(results);
+
+        log.info("Batch processed: {} bookings across {} events, {} reserved",
+                results.size(), byEvent.size(),
+                results.stream().filter(r -> r.eventType() == InventoryEvent.EventType.INVENTORY_RESERVED).count());
+        return results;
+    }
+
+    /**
+     * Synchronous bulk reservation for group-sales and box-office clients.
+     * Items go through reserveInventoryBatch as BOOKING_VALIDATED events, so grouping, idempotency
+     * and the published saga events are exactly those of the Kafka path. Every transactionId is
+     * looked up in Mongo, since a client retry may follow a restart or have hit another node.
+     * Items without a transactionId fail on their own; an oversized request is a 400.
+     */
+    @Transactional
+    public BatchReservationResponse reserveInventoryBulk(BatchReservationRequest request) {
+        final List<BatchReservationRequest.Item> items = request.getItems() == null ? List.of() : request.getItems();
+        if (items.size() > maxBatchReservations) {
+            throw new ResponseStatusException(HttpStatus.BAD_REQUEST, String.format(
+                    "Too many reservations in one batch: %d, maximum: %d", items.size(), maxBatchReservations));
+        }
+
+        final List<InventoryEvent> bookingEvents = items.stream()
+                .filter(InventoryService::hasTransactionId)
+                .map(item -> new InventoryEvent(
+                        item.getTransactionId(),
+                        item.getUserId(),
+                        item.getEventId(),
+                        item.getTicketCount(),
+                        item.getTotalPrice(),
+                        InventoryEvent.EventType.BOOKING_VALIDATED))
+                .collect(Collectors.toList());
+
+        final Map<String, InventoryEvent> outcomes = reserveInventoryBatch(bookingEvents, true).stream()
+                .collect(Collectors.toMap(InventoryEvent::transactionId, result -> result));
+
+        // Items missing from the outcomes were skipped as already processed; repeats in the request
+        // get their outcome once, the same as a redelivered Kafka message would
+        final List<BatchReservationResponse.ItemResult> results = new ArrayList<>(items.size());
+        int reserved = 0;
+        int failed = 0;
+        for (BatchReservationRequest.Item item : items) {
+            if (!hasTransactionId(item)) {
+                results.add(BatchReservationResponse.ItemResult.builder()
+                        .eventId(item.getEventId())
+                        .ticketCount(item.getTicketCount())
+                        .outcome(BatchReservationResponse.Outcome.FAILED)
+                        .errorMessage("transactionId is required")
+                        .build());
+                failed++;
+                continue;
+            }
+            final InventoryEvent outcome = outcomes.remove(item.getTransactionId());
+            final BatchReservationResponse.Outcome status;
+            if (outcome == null) {
+                status = BatchReservationResponse.Outcome.DUPLICATE;
+            } else if (outcome.eventType() == InventoryEvent.EventType.INVENTORY_RESERVED) {
+                status = BatchReservationResponse.Outcome.RESERVED;
+                reserved++;
+            } else {
+                status = BatchReservationResponse.Outcome.FAILED;
+                failed++;
+            }
+            results.add(BatchReservationResponse.ItemResult.builder()
+                    .transactionId(item.getTransactionId())
+                    .eventId(item.getEventId())
+                    .ticketCount(item.getTicketCount())
+                    .outcome(status)
+                    .errorMessage(outcome == null ? null : outcome.errorMessage())
+                    .build());
+        }
+
+        return BatchReservationResponse.builder()
+                .reserved(reserved)
+                .failed(failed)
+                .duplicates(items.size() - reserved - failed)
+                .results(results)
+                .build();
+    }
+
+    private static boolean hasTransactionId(BatchReservationRequest.Item item) {
+        return item.getTransactionId() != null && !item.getTransactionId().isBlank();
+    }
+
+    /**
+     * Assigned-seating reservation: claims the requested seats (or the best adjacent block) in the
+     * section's seat map and takes the same number of tickets from the event's capacity, in one
+     * transaction, so a failure on either side leaves both untouched.
+     * A concurrent claim on the same section only shows up at the write (WriteConflict, or a best
+     * block taken since it was picked), so the whole transaction is retried on a fresh snapshot,
+     * up to max-claim-attempts times.
+     * A repeated transactionId returns the seats it already holds.
+     */
+    public SeatReservationResponse reserveSeats(Long eventId, SeatReservationRequest request) {
+        if ((request.getSeats() == null || request.getSeats().isEmpty())
+                && (request.getTicketCount() == null || request.getTicketCount() <= 0)) {
+            throw new ResponseStatusException(HttpStatus.BAD_REQUEST,
+                    "Either seats or a positive ticketCount is required");
+        }
+        for (int attempt = 1; ; attempt++) {
+            try {
+                return transactionTemplate.execute(status -> reserveSeatsOnce(eventId, request));
+            } catch (RuntimeException e) {
+                if (attempt >= maxSeatAttempts || !isConcurrentClaim(e)) {
+                    throw e;
+                }
+                log.debug("Seat reservation {} for event {} lost a concurrent claim, retrying (attempt {})",
+                        request.getTransactionId(), eventId, attempt);
+            }
+        }
+    }
+
+    private SeatReservationResponse reserveSeatsOnce(Long eventId, SeatReservationRequest request) {
+        final Reservation existing = isAlreadyProcessed(request.getTransactionId())
+                ? reservationRepository.findByTransactionId(request.getTransactionId()).orElse(null)
+                : null;
+        if (existing == null && isArchived(request.getTransactionId())) {
+            throw new RuntimeException(String.format("Transaction %s already processed with status %s",
+                    request.getTransactionId(), archive.getReservation(request.getTransactionId()).getStatus()));
+        }
+        if (existing != null) {
+            if (existing.getStatus() != Reservation.ReservationStatus.RESERVED || !existing.hasSeats()) {
+                throw new RuntimeException(String.format("Transaction %s already processed with status %s",
+                        request.getTransactionId(), existing.getStatus()));
+            }
+            return SeatReservationResponse.builder()
+                    .transactionId(existing.getTransactionId())
+                    .eventId(existing.getEventId())
+                    .sectionId(existing.getSectionId())
+                    .seats(existing.getSeats())
+                    .build();
+        }
+
+        final List<Integer> seats = request.getSeats() != null && !request.getSeats().isEmpty()
+                ? seatService.claimSeats(eventId, request.getSectionId(), request.getSeats())
+                : seatService.claimBestAvailable(eventId, request.getSectionId(), request.getTicketCount().intValue());
+
+        final long tickets = seats.size();
+        final CapacityUpdateResult capacity;
+        try (EventAdmission.Permit permit = admission.enter(eventId)) {
+            capacity = metrics.time(InventoryMetrics.Stage.CAPACITY_UPDATE,
+                    () -> capacityService.reserve(eventId, tickets, request.getTransactionId()));
+        }
+        requireUpdated(capacity, eventId, tickets);
+
+        final InventoryEvent bookingEvent = new InventoryEvent(request.getTransactionId(), request.getUserId(),
+                eventId, tickets, request.getTotalPrice(), InventoryEvent.EventType.BOOKING_VALIDATED);
+        final Reservation reservation = reservedReservation(bookingEvent, capacity.leftCapacity() + tickets,
+                capacity.shard());
+        reservation.setSectionId(request.getSectionId());
+        reservation.setSeats(seats);
+        insertReservation(reservation);
+
+        publisher.publish(reservedEvent(bookingEvent));
+        log.info("Reserved seats {} in section {} for event {}, transaction {}",
+                seats, request.getSectionId(), eventId, request.getTransactionId());
+
+        return SeatReservationResponse.builder()
+                .transactionId(request.getTransactionId())
+                .eventId(eventId)
+                .sectionId(request.getSectionId())
+                .seats(seats)
+                .leftCapacity(capacity.leftCapacity())
+                .build();
+    }
+
+    /**
+     * Checkout completed: the reservation keeps its tickets and its hold, if any, is dropped.
+     * Confirming twice is a no-op; a reservation that already gave its tickets back cannot be confirmed.
+     */
+    @Transactional
+    public void confirmReservation(String transactionId) {
+        final Reservation reservation = reservationRepository.findByTransactionId(transactionId)
+                .orElseThrow(() -> new RuntimeException("Reservation not found: " + transactionId));
+        if (reservation.getStatus() == Reservation.ReservationStatus.CONFIRMED) {
+            return;
+        }
+        final long transitioned = reservationRepository.transitionStatus(List.of(reservation.getId()),
+                Reservation.ReservationStatus.RESERVED, Reservation.ReservationStatus.CONFIRMED);
+        if (transitioned == 0) {
+            throw new RuntimeException(String.format("Transaction %s cannot be confirmed, status %s",
+                    transactionId, reservation.getStatus()));
+        }
+        if (holds != null) {
+            holds.release(reservation);
+        }
+        metrics.reservationWritten(Reservation.ReservationStatus.CONFIRMED);
+        log.info("Reservation confirmed for transaction: {}", transactionId);
+    }
+
+    public void shardEventCapacity(Long eventId, int shards) {
+        final long split = capacityService.shardCapacity(eventId, shards);
+        log.info("Event {} capacity ({} left) split across {} shards", eventId, split, shards);
+    }
+
+    public List<SectionAvailabilityResponse> getSeatAvailability(Long eventId) {
+        return seatService.getAvailability(eventId);
+    }
+
+    private void reserveGroup(Long eventId, List<InventoryEvent> bookings,
+                              List<Reservation> reservations, List<InventoryEvent> results) {
+        // Bookings the event is known not to fit fail without a capacity update
+        List<InventoryEvent> group = new ArrayList<>(bookings.size());
+        for (InventoryEvent bookingEvent : bookings) {
+            String soldOut = admission.soldOutRejection(eventId, bookingEvent.ticketCount());
+            if (soldOut == null) {
+                group.add(bookingEvent);
+            } else {
+                reservations.add(failedReservation(bookingEvent, soldOut));
+                results.add(failedEvent(bookingEvent, soldOut));
+            }
+        }
+        if (group.isEmpty()) {
+            return;
+        }
+
+        // Optimistic: try to take the whole group at once
+        List<InventoryEvent> accepted = group;
+        CapacityUpdateResult capacity;
+        try (EventAdmission.Permit permit = admission.enter(eventId)) {
+            capacity = metrics.time(InventoryMetrics.Stage.CAPACITY_UPDATE,
+                    () -> capacityService.reserve(eventId, totalTickets(group)));
+
+            // Not enough for everyone: take what fits at the observed capacity and retry until it sticks
+            while (capacity.outcome() == CapacityUpdateResult.Outcome.INSUFFICIENT_CAPACITY) {
+                accepted = fitWithin(group, capacity.leftCapacity());
+                if (accepted.isEmpty()) {
+                    break;
+                }
+                final List<InventoryEvent> fitting = accepted;
+                capacity = metrics.time(InventoryMetrics.Stage.CAPACITY_UPDATE,
+                        () -> capacityService.reserve(eventId, totalTickets(fitting)));
+            }
+        }
+
+        if (!capacity.isUpdated()) {
+            accepted = List.of();
+        }
+        Set<InventoryEvent> reserved = new HashSet<>(accepted);
+        long remaining = capacity.isUpdated()
+                ? capacity.leftCapacity() + totalTickets(accepted)
+                : capacity.leftCapacity() == null ? 0 : capacity.leftCapacity();
+
+        for (InventoryEvent bookingEvent : group) {
+            if (reserved.contains(bookingEvent)) {
+                reservations.add(reservedReservation(bookingEvent, remaining, capacity.shard()));
+                results.add(reservedEvent(bookingEvent));
+                remaining -= bookingEvent.ticketCount();
+            } else {
+                String error = capacity.outcome() == CapacityUpdateResult.Outcome.EVENT_NOT_FOUND
+                        ? "Event not found: " + eventId
+                        : String.format("Insufficient capacity. Available: %d, Requested: %d",
+                                remaining, bookingEvent.ticketCount());
+                reservations.add(failedReservation(bookingEvent, error));
+                results.add(failedEvent(bookingEvent, error));
+            }
+        }
+    }
+
+    // Same first-come decision the per-record path makes, applied to a known capacity
+    private static List<InventoryEvent> fitWithin(List<InventoryEvent> group, long available) {
+        List<InventoryEvent> fitting = new ArrayList<>();
+        for (InventoryEvent bookingEvent : group) {
+            if (bookingEvent.ticketCount() <= available) {
+                fitting.add(bookingEvent);
+                available -= bookingEvent.ticketCount();
+            }
+        }
+        return fitting;
+    }
+
+    private static long totalTickets(List<InventoryEvent> bookingEvents) {
+        return bookingEvents.stream().mapToLong(InventoryEvent::ticketCount).sum();
+    }
+
+    private static Reservation reservedReservation(InventoryEvent bookingEvent, Long originalCapacity,
+                                                   Integer capacityShard) {
+        return Reservation.builder()
+                .transactionId(bookingEvent.transactionId())
+                .eventId(bookingEvent.eventId())
+                .userId(bookingEvent.userId())
+                .ticketCount(bookingEvent.ticketCount())
+                .originalCapacity(originalCapacity)
+                .capacityShard(capacityShard)
+                .status(Reservation.ReservationStatus.RESERVED)
+                .createdAt(LocalDateTime.now())
+                .build();
+    }
+
+    private static Reservation failedReservation(InventoryEvent bookingEvent, String errorMessage) {
+        return Reservation.builder()
+                .transactionId(bookingEvent.transactionId())
+                .eventId(bookingEvent.eventId())
+                .userId(bookingEvent.userId())
+                .ticketCount(bookingEvent.ticketCount())
+                .status(Reservation.ReservationStatus.FAILED)
+                .errorMessage(errorMessage)
+                .createdAt(LocalDateTime.now())
+                .build();
+    }
+
+    private static InventoryEvent reservedEvent(InventoryEvent bookingEvent) {
+        return new InventoryEvent(
+                bookingEvent.transactionId(),
+                bookingEvent.userId(),
+                bookingEvent.eventId(),
+                bookingEvent.ticketCount(),
+                bookingEvent.totalPrice(),
+                InventoryEvent.EventType.INVENTORY_RESERVED
+        );
+    }
+
+    private static InventoryEvent failedEvent(InventoryEvent bookingEvent, String errorMessage) {
+        return InventoryEvent.failure(
+                bookingEvent.transactionId(),
+                bookingEvent.userId(),
+                bookingEvent.eventId(),
+                bookingEvent.ticketCount(),
+                InventoryEvent.EventType.INVENTORY_RESERVATION_FAILED,
+                errorMessage
+        );
     }
 
     /**
      * SAGA Pattern: Listen for compensation events
+     * Our own INVENTORY_* outputs on inventory-events are dropped by header before deserialization.
      */
-    @KafkaListener(topics = "inventory-events", groupId = "inventory-compensation")
-    public void handleCompensation(InventoryEvent event) {
+    @KafkaListener(topics = "#{'${inventory.kafka.compensation-topics:inventory-events}'.split(',')}",
+            groupId = "inventory-compensation",
+            concurrency = "${inventory.kafka.inventory-events.concurrency:1}",
+            filter = "skippedRecordFilter",
+            properties = {
+                    "value.deserializer=com.erez.ticketbot.inventoryservice.event.EventTypeFilteringDeserializer",
+                    "inventory.event-type.accepted=COMPENSATE_INVENTORY"
+            })
+    @Transactional
+    public void handleCompensation(InventoryEvent event,
+                                   @Header(KafkaHeaders.RECEIVED_TOPIC) String topic,
+                                   @Header(KafkaHeaders.RECEIVED_TIMESTAMP) long timestamp) {
+        metrics.listenerLag(topic, timestamp);
+        metrics.eventConsumed(event.eventType());
         if (event.eventType() == InventoryEvent.EventType.COMPENSATE_INVENTORY) {
             compensateInventory(event);
         }
@@ -209,8 +756,8 @@ public class InventoryService {
 
         try {
             // PRODUCTION: Retrieve reservation from MongoDB (survives restarts!)
-            Reservation reservation = reservationRepository
-                    .findByTransactionId(compensationEvent.transactionId())
+            Reservation reservation = metrics.time(InventoryMetrics.Stage.RESERVATION_LOOKUP,
+                            () -> reservationRepository.findByTransactionId(compensationEvent.transactionId()))
                     .orElse(null);
 
             if (reservation == null) {
@@ -226,20 +773,24 @@ public class InventoryService {
                 return;
             }
 
-            // Find event and restore inventory
-            Event event = eventRepository.findById(reservation.getEventId())
-                    .orElseThrow(() -> new RuntimeException("Event not found: " + reservation.getEventId()));
-
-            // Restore inventory to pre-reservation capacity
-            event.setLeftCapacity(event.getLeftCapacity() + reservation.getTicketCount());
-            eventRepository.save(event);
+            // Restore inventory with a single atomic increment
+            CapacityUpdateResult capacity = metrics.time(InventoryMetrics.Stage.CAPACITY_UPDATE,
+                    () -> capacityService.release(reservation.getEventId(), reservation.getTicketCount(),
+                            reservation.getCapacityShard()));
+            requireUpdated(capacity, reservation.getEventId(), reservation.getTicketCount());
+            if (reservation.hasSeats()) {
+                seatService.releaseSeats(reservation.getEventId(), reservation.getSectionId(), reservation.getSeats());
+            }
 
             log.info("Restored {} tickets for event {}. New capacity: {}",
-                    reservation.getTicketCount(), reservation.getEventId(), event.getLeftCapacity());
+                    reservation.getTicketCount(), reservation.getEventId(), capacity.leftCapacity());
 
             // Update reservation status to COMPENSATED
             reservation.setStatus(Reservation.ReservationStatus.COMPENSATED);
-            reservationRepository.save(reservation);
+            saveReservation(reservation);
+            if (holds != null) {
+                holds.release(reservation);
+            }
 
             log.info("Reservation marked as COMPENSATED in MongoDB for transaction: {}",
                     compensationEvent.transactionId());
@@ -254,7 +805,7 @@ public class InventoryService {
                     InventoryEvent.EventType.INVENTORY_COMPENSATED
             );
 
-            kafkaTemplate.send("inventory-events", compensated);
+            publisher.publish(reservation.getEventId(), compensated);
             log.info("INVENTORY_COMPENSATED event published for transaction: {}",
                     compensationEvent.transactionId());
 
@@ -275,23 +826,67 @@ public class InventoryService {
         }
     }
 
-    @Transactional
-    public void cleanupOldReservations(int daysOld) {
-        LocalDateTime cutoffDate = LocalDateTime.now().minusDays(daysOld);
-        List<Reservation> oldReservations = reservationRepository.findByCreatedAtBefore(cutoffDate);
-
-        int cleanedCount = 0;
-        for (Reservation reservation : oldReservations) {
-            if (reservation.getStatus() == Reservation.ReservationStatus.COMPENSATED ||
-                    reservation.getStatus() == Reservation.ReservationStatus.FAILED) {
-                reservationRepository.delete(reservation);
-                cleanedCount++;
-                log.debug("Cleaned up old reservation: {}", reservation.getTransactionId());
+    // Lost to another writer of the same documents; a new transaction sees its result
+    private static boolean isConcurrentClaim(Throwable exception) {
+        for (Throwable cause = exception; cause != null; cause = cause.getCause()) {
+            if (cause instanceof ConcurrencyFailureException
+                    || cause instanceof MongoException mongo
+                    && (mongo.hasErrorLabel(MongoException.TRANSIENT_TRANSACTION_ERROR_LABEL)
+                    || mongo.getCode() == WRITE_CONFLICT)) {
+                return true;
             }
         }
+        return false;
+    }
+
+    // NEW only means this node has not seen the id: it may still be in the ReservationArchive
+    private boolean isAlreadyProcessed(String transactionId) {
+        return switch (idempotency.check(transactionId)) {
+            case DUPLICATE -> true;
+            case POSSIBLE_DUPLICATE -> metrics.time(InventoryMetrics.Stage.IDEMPOTENCY_CHECK,
+                    () -> reservationRepository.existsByTransactionId(transactionId)) || isArchived(transactionId);
+            case NEW -> isArchived(transactionId);
+        };
+    }
+
+    // Per-segment Bloom filters answer most ids without touching the segment files
+    private boolean isArchived(String transactionId) {
+        return archive != null && transactionId != null && archive.contains(transactionId);
+    }
+
+    private void insertReservation(Reservation reservation) {
+        idempotency.record(reservation.getTransactionId());
+        stampHold(reservation);
+        metrics.time(InventoryMetrics.Stage.RESERVATION_WRITE, () -> reservationRepository.insert(reservation));
+        metrics.reservationWritten(reservation.getStatus());
+        trackHold(reservation);
+    }
+
+    // With holds enabled, RESERVED reservations give their tickets back unless confirmed in time
+    private void stampHold(Reservation reservation) {
+        if (holds != null && reservation.canBeCompensated()) {
+            holds.stamp(reservation);
+        }
+    }
+
+    private void trackHold(Reservation reservation) {
+        if (holds != null && reservation.canBeCompensated()) {
+            holds.track(reservation);
+        }
+    }
+
+    private void saveReservation(Reservation reservation) {
+        metrics.time(InventoryMetrics.Stage.RESERVATION_WRITE, () -> reservationRepository.save(reservation));
+        metrics.reservationWritten(reservation.getStatus());
+    }
 
-        if (cleanedCount > 0) {
-            log.info("Cleanup completed: {} old reservations removed", cleanedCount);
+    private static void requireUpdated(CapacityUpdateResult result, Long eventId, Long requested) {
+        switch (result.outcome()) {
+            case EVENT_NOT_FOUND -> throw new RuntimeException("Event not found: " + eventId);
+            case INSUFFICIENT_CAPACITY -> throw new RuntimeException(
+                    String.format("Insufficient capacity. Available: %d, Requested: %d",
+                            result.leftCapacity(), requested));
+            case UPDATED -> { }
         }
     }
 }
\ No newline at end of file
@@ -0,0 +1,141 @@
+package com.erez.ticketbot.inventoryservice.service;
+
+import com.erez.ticketbot.inventoryservice.entity.OutboxMessage;
+import com.erez.ticketbot.inventoryservice.event.InventoryEvent;
+import com.erez.ticketbot.inventoryservice.repository.OutboxRepository;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.data.domain.Limit;
+import org.springframework.kafka.support.SendResult;
+import org.springframework.stereotype.Component;
+
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Relays the outbox to Kafka. Each round reads the oldest batch-size messages, hands them all to the
+ * producer at once so they share linger/batch/compression, waits for the acknowledgements and deletes
+ * the acknowledged messages in one call. Full batches are followed immediately by the next round.
+ * Records are keyed by eventId, and per key only the acknowledged prefix is deleted: once a message
+ * fails, the key's later messages stay in the outbox even if acknowledged, so the next round resends
+ * them after the failed one and each event's messages still end in outbox order.
+ * Delivery is at least once: a crash between acknowledgement and delete resends those messages with
+ * the same inventory-outbox-id header, and consumers deduplicate on transactionId anyway.
+ * Run the relay on one instance only (inventory.outbox.relay.enabled), or messages are sent twice.
+ * Polls every interval-ms on a thread of its own, so saga events never wait behind scheduled jobs.
+ */
+@Slf4j
+@Component
+@ConditionalOnProperty(name = {"inventory.outbox.enabled", "inventory.outbox.relay.enabled"}, havingValue = "true")
+public class OutboxRelay {
+
+    private final OutboxRepository outboxRepository;
+    private final InventoryEventPublisher publisher;
+    private final int batchSize;
+    private final long sendTimeoutMs;
+    private final int maxRoundsPerRun;
+    private final long intervalMs;
+    private final Counter relayed;
+    private final Counter failed;
+    private final ScheduledExecutorService scheduler = Executors.newSingleThreadScheduledExecutor(runnable -> {
+        Thread thread = new Thread(runnable, "outbox-relay");
+        thread.setDaemon(true);
+        return thread;
+    });
+
+    @Autowired
+    public OutboxRelay(OutboxRepository outboxRepository,
+                       InventoryEventPublisher publisher,
+                       MeterRegistry registry,
+                       @Value("${inventory.outbox.relay.batch-size:1000}") int batchSize,
+                       @Value("${inventory.outbox.relay.send-timeout-ms:30000}") long sendTimeoutMs,
+                       @Value("${inventory.outbox.relay.max-rounds-per-run:100}") int maxRoundsPerRun,
+                       @Value("${inventory.outbox.relay.interval-ms:50}") long intervalMs) {
+        this.outboxRepository = outboxRepository;
+        this.publisher = publisher;
+        this.batchSize = batchSize;
+        this.sendTimeoutMs = sendTimeoutMs;
+        this.maxRoundsPerRun = maxRoundsPerRun;
+        this.intervalMs = intervalMs;
+        this.relayed = Counter.builder("inventory.outbox.relayed").register(registry);
+        this.failed = Counter.builder("inventory.outbox.failed").register(registry);
+    }
+
+    @PostConstruct
+    public void start() {
+        // A failed run must not cancel the schedule
+        scheduler.scheduleWithFixedDelay(() -> {
+            try {
+                run();
+            } catch (Exception e) {
+                log.error("Outbox relay run failed", e);
+            }
+        }, intervalMs, intervalMs, TimeUnit.MILLISECONDS);
+    }
+
+    @PreDestroy
+    public void shutdown() {
+        scheduler.shutdown();
+    }
+
+    public void run() {
+        for (int round = 0; round < maxRoundsPerRun; round++) {
+            List<OutboxMessage> batch = outboxRepository.findAllByOrderByIdAsc(Limit.of(batchSize));
+            if (batch.isEmpty()) {
+                return;
+            }
+            int sent = relay(batch);
+            // A short batch means the outbox is drained; failures wait for the next run
+            if (batch.size() < batchSize || sent < batch.size()) {
+                return;
+            }
+        }
+    }
+
+    private int relay(List<OutboxMessage> batch) {
+        List<CompletableFuture<SendResult<String, InventoryEvent>>> sends = new ArrayList<>(batch.size());
+        for (OutboxMessage message : batch) {
+            sends.add(publisher.send(message.getEventId(), message.getPayload(), message.getId()));
+        }
+
+        List<String> acknowledged = new ArrayList<>(batch.size());
+        Set<Long> failedKeys = new HashSet<>();
+        for (int i = 0; i < batch.size(); i++) {
+            OutboxMessage message = batch.get(i);
+            if (failedKeys.contains(message.getEventId())) {
+                continue;
+            }
+            try {
+                sends.get(i).get(sendTimeoutMs, TimeUnit.MILLISECONDS);
+                acknowledged.add(message.getId());
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                break;
+            } catch (Exception e) {
+                failed.increment();
+                failedKeys.add(message.getEventId());
+                log.warn("Failed to relay outbox message {} for transaction {}",
+                        message.getId(), message.getPayload().transactionId(), e);
+            }
+        }
+
+        if (!acknowledged.isEmpty()) {
+            outboxRepository.deleteAllById(acknowledged);
+            relayed.increment(acknowledged.size());
+        }
+        log.debug("Relayed {}/{} outbox messages", acknowledged.size(), batch.size());
+        return acknowledged.size();
+    }
+}
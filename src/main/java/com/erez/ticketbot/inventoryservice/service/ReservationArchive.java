@@ -0,0 +1,242 @@
+package com.erez.ticketbot.inventoryservice.service;
+
+import com.erez.ticketbot.inventoryservice.entity.Reservation;
+import com.erez.ticketbot.inventoryservice.repository.ReservationRepository;
+import com.erez.ticketbot.inventoryservice.response.ArchivedReservationResponse;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import jakarta.annotation.PostConstruct;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.data.domain.Limit;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+
+import java.io.IOException;
+import java.nio.file.DirectoryStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CopyOnWriteArrayList;
+
+/**
+ * Archive tier for terminal reservations, enabled with inventory.archive.enabled=true.
+ * Every interval-ms, CONFIRMED / COMPENSATED / FAILED reservations older than min-age are moved
+ * oldest first into ArchiveSegment files under dir, up to segment-records per segment, and then
+ * deleted from the reservations collection. Segments are immutable and memory-mapped; lookups go
+ * through their in-memory sparse indexes, newest segment first.
+ * A crash between writing a segment and the delete leaves the reservations in both places;
+ * the next run finds them already archived and only deletes them.
+ * Archived CONFIRMED tickets still count as sold: see archivedConfirmedTickets(). Archived
+ * transactionIds still count as processed: InventoryService checks contains() before reserving.
+ * Keep min-age below the reservations TTL index, or reservations expire before they are archived.
+ */
+@Slf4j
+@Component
+@ConditionalOnProperty(name = "inventory.archive.enabled", havingValue = "true")
+public class ReservationArchive {
+
+    private static final List<Reservation.ReservationStatus> TERMINAL_STATUSES = List.of(
+            Reservation.ReservationStatus.CONFIRMED,
+            Reservation.ReservationStatus.COMPENSATED,
+            Reservation.ReservationStatus.FAILED);
+    private static final String SEGMENT_PREFIX = "segment-";
+    private static final String SEGMENT_SUFFIX = ".seg";
+
+    private final ReservationRepository reservationRepository;
+    private final Path dir;
+    private final Duration minAge;
+    private final int segmentRecords;
+    private final int blockRecords;
+    private final int maxSegmentsPerRun;
+    private final List<ArchiveSegment> segments = new CopyOnWriteArrayList<>();
+    private final Counter archived;
+    private long nextSequence = 1;
+
+    @Autowired
+    public ReservationArchive(ReservationRepository reservationRepository,
+                              MeterRegistry registry,
+                              @Value("${inventory.archive.dir:data/reservation-archive}") String dir,
+                              @Value("${inventory.archive.min-age-minutes:60}") long minAgeMinutes,
+                              @Value("${inventory.archive.segment-records:50000}") int segmentRecords,
+                              @Value("${inventory.archive.block-records:256}") int blockRecords,
+                              @Value("${inventory.archive.max-segments-per-run:10}") int maxSegmentsPerRun) {
+        this.reservationRepository = reservationRepository;
+        this.dir = Paths.get(dir);
+        this.minAge = Duration.ofMinutes(minAgeMinutes);
+        this.segmentRecords = segmentRecords;
+        this.blockRecords = blockRecords;
+        this.maxSegmentsPerRun = maxSegmentsPerRun;
+        this.archived = Counter.builder("inventory.archive.archived").register(registry);
+        Gauge.builder("inventory.archive.segments", segments, List::size).register(registry);
+        Gauge.builder("inventory.archive.bytes", segments,
+                all -> all.stream().mapToLong(ArchiveSegment::sizeBytes).sum()).register(registry);
+    }
+
+    // Before the Kafka listeners start, so the ledger's reconcile sees archived CONFIRMED tickets
+    @PostConstruct
+    public void load() throws IOException {
+        Files.createDirectories(dir);
+        List<Path> files = new ArrayList<>();
+        try (DirectoryStream<Path> listing = Files.newDirectoryStream(dir)) {
+            for (Path file : listing) {
+                String name = file.getFileName().toString();
+                if (name.endsWith(SEGMENT_SUFFIX + ".tmp")) {
+                    // Unfinished write; its reservations are still in MongoDB
+                    Files.delete(file);
+                } else if (name.startsWith(SEGMENT_PREFIX) && name.endsWith(SEGMENT_SUFFIX)) {
+                    files.add(file);
+                }
+            }
+        }
+        files.sort(null);
+        for (Path file : files) {
+            segments.add(ArchiveSegment.open(file));
+            nextSequence = Math.max(nextSequence, sequence(file) + 1);
+        }
+        log.info("Reservation archive loaded: {} segments, {} reservations", segments.size(),
+                segments.stream().mapToLong(ArchiveSegment::recordCount).sum());
+    }
+
+    @Scheduled(fixedDelayString = "${inventory.archive.interval-ms:300000}",
+            initialDelayString = "${inventory.archive.initial-delay-ms:60000}")
+    public void run() {
+        try {
+            long total = archive();
+            if (total > 0) {
+                log.info("Archived {} terminal reservations", total);
+            }
+        } catch (Exception e) {
+            log.error("Reservation archive run failed", e);
+        }
+    }
+
+    /**
+     * @return number of reservations moved to the archive
+     */
+    public synchronized long archive() throws IOException {
+        LocalDateTime cutoff = LocalDateTime.now().minus(minAge);
+        long total = 0;
+
+        for (int round = 0; round < maxSegmentsPerRun; round++) {
+            List<Reservation> batch = reservationRepository.findTerminalReservationsForArchive(
+                    cutoff, TERMINAL_STATUSES, Limit.of(segmentRecords));
+            if (batch.isEmpty()) {
+                break;
+            }
+
+            List<Reservation> fresh = new ArrayList<>(batch.size());
+            for (Reservation reservation : batch) {
+                if (reservation.getTransactionId() == null || find(reservation.getTransactionId()) == null) {
+                    fresh.add(reservation);
+                }
+            }
+            if (!fresh.isEmpty()) {
+                Path file = dir.resolve(String.format("%s%020d%s", SEGMENT_PREFIX, nextSequence, SEGMENT_SUFFIX));
+                ArchiveSegment.write(file, fresh, blockRecords);
+                segments.add(ArchiveSegment.open(file));
+                nextSequence++;
+            }
+
+            // Only after the segment is durable
+            reservationRepository.deleteAllById(batch.stream().map(Reservation::getId).toList());
+            archived.increment(fresh.size());
+            total += fresh.size();
+            if (batch.size() < segmentRecords) {
+                break;
+            }
+        }
+        return total;
+    }
+
+    public ArchivedReservationResponse getReservation(String transactionId) {
+        Reservation reservation = find(transactionId);
+        if (reservation == null) {
+            throw new RuntimeException("Archived reservation not found: " + transactionId);
+        }
+        return toResponse(reservation);
+    }
+
+    /**
+     * Whether a reservation with this transactionId was archived. The booking idempotency checks
+     * fall back to this, as archived reservations no longer hold their transactionId in Mongo.
+     */
+    public boolean contains(String transactionId) {
+        return find(transactionId) != null;
+    }
+
+    public List<ArchivedReservationResponse> getEventReservations(Long eventId) {
+        // Keyed by reservation id: a record archived twice is returned once
+        Map<String, Reservation> found = new LinkedHashMap<>();
+        for (ArchiveSegment segment : segments) {
+            for (Reservation reservation : read(segment, () -> segment.findByEventId(eventId))) {
+                found.putIfAbsent(reservation.getId(), reservation);
+            }
+        }
+        return found.values().stream().map(ReservationArchive::toResponse).toList();
+    }
+
+    /**
+     * eventId -> tickets of archived CONFIRMED reservations. Anything that derives capacity from
+     * the reservations collection adds these, as the tickets are still sold.
+     */
+    public Map<Long, Long> archivedConfirmedTickets() {
+        Map<Long, Long> totals = new HashMap<>();
+        segments.forEach(segment -> segment.confirmedTickets().forEach((eventId, tickets) ->
+                totals.merge(eventId, tickets, Long::sum)));
+        return totals;
+    }
+
+    private Reservation find(String transactionId) {
+        for (int i = segments.size() - 1; i >= 0; i--) {
+            ArchiveSegment segment = segments.get(i);
+            Reservation reservation = read(segment, () -> segment.findByTransactionId(transactionId));
+            if (reservation != null) {
+                return reservation;
+            }
+        }
+        return null;
+    }
+
+    private static <T> T read(ArchiveSegment segment, SegmentRead<T> read) {
+        try {
+            return read.apply();
+        } catch (IOException e) {
+            throw new RuntimeException("Failed to read archive segment " + segment.path(), e);
+        }
+    }
+
+    private static long sequence(Path file) {
+        String name = file.getFileName().toString();
+        return Long.parseLong(name.substring(SEGMENT_PREFIX.length(), name.length() - SEGMENT_SUFFIX.length()));
+    }
+
+    private static ArchivedReservationResponse toResponse(Reservation reservation) {
+        return ArchivedReservationResponse.builder()
+                .transactionId(reservation.getTransactionId())
+                .eventId(reservation.getEventId())
+                .userId(reservation.getUserId())
+                .ticketCount(reservation.getTicketCount())
+                .status(reservation.getStatus())
+                .createdAt(reservation.getCreatedAt())
+                .errorMessage(reservation.getErrorMessage())
+                .sectionId(reservation.getSectionId())
+                .seats(reservation.getSeats())
+                .build();
+    }
+
+    @FunctionalInterface
+    private interface SegmentRead<T> {
+        T apply() throws IOException;
+    }
+}
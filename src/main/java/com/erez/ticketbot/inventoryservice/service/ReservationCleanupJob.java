@@ -0,0 +1,142 @@
+package com.erez.ticketbot.inventoryservice.service;
+
+import com.erez.ticketbot.inventoryservice.entity.Reservation;
+import com.erez.ticketbot.inventoryservice.repository.ReservationRepository;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import jakarta.annotation.PreDestroy;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.data.domain.Limit;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+
+import java.time.LocalDateTime;
+import java.util.List;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Background removal of old COMPENSATED / FAILED reservations.
+ * Works in chunks of chunk-size ids with one bulk delete each and sleeps throttle-ms between
+ * chunks, so it never holds a large transaction or result set and leaves headroom for bookings.
+ * Runs on its own thread: the throttled purge can take minutes and must not hold up the shared
+ * scheduler (ledger flush, outbox relay, ...). A run still in progress makes the next one a no-op.
+ * Metrics: inventory.cleanup.deleted, inventory.cleanup.chunks, inventory.cleanup.run,
+ * inventory.cleanup.run.deleted (deleted so far by the current or last run).
+ */
+@Slf4j
+@Component
+@ConditionalOnProperty(name = "inventory.cleanup.enabled", havingValue = "true", matchIfMissing = true)
+public class ReservationCleanupJob {
+
+    private static final List<Reservation.ReservationStatus> TERMINAL_STATUSES = List.of(
+            Reservation.ReservationStatus.COMPENSATED,
+            Reservation.ReservationStatus.FAILED);
+
+    private final ReservationRepository reservationRepository;
+    private final int daysOld;
+    private final int chunkSize;
+    private final long throttleMs;
+    private final int maxChunksPerRun;
+    private final Counter deleted;
+    private final Counter chunks;
+    private final Timer runs;
+    private final AtomicLong deletedThisRun;
+    private final AtomicBoolean running = new AtomicBoolean();
+    private final ExecutorService executor = Executors.newSingleThreadExecutor(runnable -> {
+        Thread thread = new Thread(runnable, "reservation-cleanup");
+        thread.setDaemon(true);
+        return thread;
+    });
+
+    @Autowired
+    public ReservationCleanupJob(ReservationRepository reservationRepository,
+                                 MeterRegistry registry,
+                                 @Value("${inventory.cleanup.days-old:7}") int daysOld,
+                                 @Value("${inventory.cleanup.chunk-size:1000}") int chunkSize,
+                                 @Value("${inventory.cleanup.throttle-ms:100}") long throttleMs,
+                                 @Value("${inventory.cleanup.max-chunks-per-run:1000}") int maxChunksPerRun) {
+        this.reservationRepository = reservationRepository;
+        this.daysOld = daysOld;
+        this.chunkSize = chunkSize;
+        this.throttleMs = throttleMs;
+        this.maxChunksPerRun = maxChunksPerRun;
+        this.deleted = Counter.builder("inventory.cleanup.deleted").register(registry);
+        this.chunks = Counter.builder("inventory.cleanup.chunks").register(registry);
+        this.runs = Timer.builder("inventory.cleanup.run").register(registry);
+        this.deletedThisRun = registry.gauge("inventory.cleanup.run.deleted", new AtomicLong());
+    }
+
+    @Scheduled(fixedDelayString = "${inventory.cleanup.interval-ms:600000}",
+            initialDelayString = "${inventory.cleanup.initial-delay-ms:60000}")
+    public void run() {
+        if (!running.compareAndSet(false, true)) {
+            return;
+        }
+        executor.execute(() -> {
+            try {
+                runs.record(() -> cleanupOldReservations(daysOld));
+            } catch (Exception e) {
+                log.error("Reservation cleanup failed", e);
+            } finally {
+                running.set(false);
+            }
+        });
+    }
+
+    /**
+     * @return number of reservations removed
+     */
+    public long cleanupOldReservations(int olderThanDays) {
+        LocalDateTime cutoffDate = LocalDateTime.now().minusDays(olderThanDays);
+        deletedThisRun.set(0);
+
+        for (int chunk = 0; chunk < maxChunksPerRun; chunk++) {
+            List<String> ids = reservationRepository
+                    .findOldTerminalReservationIds(cutoffDate, TERMINAL_STATUSES, Limit.of(chunkSize))
+                    .stream()
+                    .map(Reservation::getId)
+                    .toList();
+            if (ids.isEmpty()) {
+                break;
+            }
+
+            reservationRepository.deleteAllById(ids);
+            deleted.increment(ids.size());
+            chunks.increment();
+            log.debug("Cleanup chunk {}: {} reservations removed, {} so far",
+                    chunk + 1, ids.size(), deletedThisRun.addAndGet(ids.size()));
+
+            if (ids.size() < chunkSize || !throttle()) {
+                break;
+            }
+        }
+
+        long cleanedCount = deletedThisRun.get();
+        if (cleanedCount > 0) {
+            log.info("Cleanup completed: {} old reservations removed", cleanedCount);
+        }
+        return cleanedCount;
+    }
+
+    private boolean throttle() {
+        try {
+            Thread.sleep(throttleMs);
+            return true;
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            return false;
+        }
+    }
+
+    @PreDestroy
+    public void shutdown() {
+        executor.shutdownNow();
+    }
+}
@@ -0,0 +1,245 @@
+package com.erez.ticketbot.inventoryservice.service;
+
+import com.erez.ticketbot.inventoryservice.dto.CapacityUpdateResult;
+import com.erez.ticketbot.inventoryservice.entity.Reservation;
+import com.erez.ticketbot.inventoryservice.event.InventoryEvent;
+import com.erez.ticketbot.inventoryservice.repository.ReservationRepository;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.time.ZoneId;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.stream.Stream;
+
+/**
+ * Time-bounded holds on RESERVED reservations, enabled with inventory.holds.enabled=true.
+ * Each new reservation gets holdExpiresAt = createdAt + hold-ms and a timer in an in-process
+ * HoldTimingWheel, so expiry costs O(1) per hold and never polls MongoDB. Every tick-ms the wheel
+ * is advanced; expired holds are grouped by eventId and released in chunks of batch-size, each one
+ * transaction: a conditional RESERVED -> COMPENSATED transition, one capacity increment per shard,
+ * seat release and INVENTORY_COMPENSATED events, as StuckReservationReaper does.
+ * The wheel is rebuilt from MongoDB on startup and only knows holds created or loaded by this node;
+ * holds of a node that is gone are picked up when any node restarts, or by the reaper.
+ * Keep hold-ms below the reservations TTL index. Only enable it where checkout confirms reservations
+ * (PUT /inventory/reservations/{transactionId}/confirm), otherwise every booking expires.
+ */
+@Slf4j
+@Component
+@ConditionalOnProperty(name = "inventory.holds.enabled", havingValue = "true")
+public class ReservationHolds {
+
+    private final ReservationRepository reservationRepository;
+    private final CapacityService capacityService;
+    private final SeatService seatService;
+    private final InventoryEventPublisher publisher;
+    private final TransactionTemplate transactionTemplate;
+    private final Duration hold;
+    private final long tickMs;
+    private final long retryMs;
+    private final int batchSize;
+    private final HoldTimingWheel wheel;
+    private final ScheduledExecutorService ticker;
+    private final Counter expired;
+
+    @Autowired
+    public ReservationHolds(ReservationRepository reservationRepository,
+                            CapacityService capacityService,
+                            SeatService seatService,
+                            InventoryEventPublisher publisher,
+                            PlatformTransactionManager transactionManager,
+                            MeterRegistry registry,
+                            @Value("${inventory.holds.hold-ms:600000}") long holdMs,
+                            @Value("${inventory.holds.tick-ms:100}") long tickMs,
+                            @Value("${inventory.holds.wheel-size:64}") int wheelSize,
+                            @Value("${inventory.holds.levels:4}") int levels,
+                            @Value("${inventory.holds.batch-size:500}") int batchSize,
+                            @Value("${inventory.holds.retry-ms:5000}") long retryMs) {
+        this.reservationRepository = reservationRepository;
+        this.capacityService = capacityService;
+        this.seatService = seatService;
+        this.publisher = publisher;
+        this.transactionTemplate = new TransactionTemplate(transactionManager);
+        this.hold = Duration.ofMillis(holdMs);
+        this.tickMs = tickMs;
+        this.retryMs = retryMs;
+        this.batchSize = batchSize;
+        this.wheel = new HoldTimingWheel(tickMs, wheelSize, levels, System.currentTimeMillis());
+        this.expired = Counter.builder("inventory.holds.expired").register(registry);
+        Gauge.builder("inventory.holds.active", this, ReservationHolds::activeHolds).register(registry);
+        this.ticker = Executors.newSingleThreadScheduledExecutor(runnable -> {
+            Thread thread = new Thread(runnable, "reservation-holds");
+            thread.setDaemon(true);
+            return thread;
+        });
+    }
+
+    /**
+     * Loads the holds of every RESERVED reservation, then starts the wheel.
+     * Holds that ran out while no node was tracking them expire on the first tick.
+     */
+    @PostConstruct
+    public void start() {
+        try (Stream<Reservation> held = reservationRepository.streamHeldReservations()) {
+            held.forEach(reservation ->
+                    schedule(reservation.getId(), reservation.getEventId(), reservation.getHoldExpiresAt()));
+        }
+        log.info("Reservation holds loaded: {}", (long) activeHolds());
+        ticker.scheduleWithFixedDelay(this::tick, tickMs, tickMs, TimeUnit.MILLISECONDS);
+    }
+
+    // Before the insert: the expiry is persisted with the reservation
+    public void stamp(Reservation reservation) {
+        LocalDateTime createdAt = reservation.getCreatedAt() != null ? reservation.getCreatedAt() : LocalDateTime.now();
+        reservation.setHoldExpiresAt(createdAt.plus(hold));
+    }
+
+    // After the insert, which assigned the id: the timer starts once that commits
+    public void track(Reservation reservation) {
+        afterCommit(() -> schedule(reservation.getId(), reservation.getEventId(), reservation.getHoldExpiresAt()));
+    }
+
+    // Confirmed or compensated: the timer is dropped once that commits
+    public void release(Reservation reservation) {
+        afterCommit(() -> {
+            synchronized (wheel) {
+                wheel.cancel(reservation.getId());
+            }
+        });
+    }
+
+    private void schedule(String reservationId, Long eventId, LocalDateTime expiresAt) {
+        long expiresAtMs = expiresAt.atZone(ZoneId.systemDefault()).toInstant().toEpochMilli();
+        synchronized (wheel) {
+            wheel.schedule(reservationId, eventId, expiresAtMs);
+        }
+    }
+
+    private void tick() {
+        List<HoldTimingWheel.Expired> due;
+        synchronized (wheel) {
+            due = wheel.advance(System.currentTimeMillis());
+        }
+        if (due.isEmpty()) {
+            return;
+        }
+
+        Map<Long, List<String>> byEvent = new LinkedHashMap<>();
+        due.forEach(hold -> byEvent.computeIfAbsent(hold.eventId(), id -> new ArrayList<>()).add(hold.reservationId()));
+
+        int released = 0;
+        for (Map.Entry<Long, List<String>> event : byEvent.entrySet()) {
+            List<String> ids = event.getValue();
+            for (int from = 0; from < ids.size(); from += batchSize) {
+                released += expireChunk(event.getKey(), ids.subList(from, Math.min(from + batchSize, ids.size())));
+            }
+        }
+        if (released > 0) {
+            log.info("Released {} expired reservation holds", released);
+        }
+    }
+
+    private int expireChunk(Long eventId, List<String> ids) {
+        Integer released;
+        try {
+            released = transactionTemplate.execute(status -> {
+                // Holds confirmed or compensated meanwhile are simply skipped
+                List<Reservation> held = reservationRepository.findAllById(ids).stream()
+                        .filter(Reservation::canBeCompensated)
+                        .toList();
+                if (held.isEmpty()) {
+                    return 0;
+                }
+
+                List<String> heldIds = held.stream().map(Reservation::getId).toList();
+                long transitioned = reservationRepository.transitionStatus(heldIds,
+                        Reservation.ReservationStatus.RESERVED, Reservation.ReservationStatus.COMPENSATED);
+                if (transitioned != heldIds.size()) {
+                    status.setRollbackOnly();
+                    return null;
+                }
+
+                // Sharded events take tickets back into the shard they came from
+                Map<Integer, Long> ticketsByShard = new HashMap<>();
+                held.forEach(reservation ->
+                        ticketsByShard.merge(reservation.getCapacityShard(), reservation.getTicketCount(), Long::sum));
+                ticketsByShard.forEach((shard, tickets) -> {
+                    CapacityUpdateResult capacity = capacityService.release(eventId, tickets, shard);
+                    if (capacity.outcome() == CapacityUpdateResult.Outcome.EVENT_NOT_FOUND) {
+                        log.warn("Event {} no longer exists, expiring holds without capacity", eventId);
+                    }
+                });
+                held.stream().filter(Reservation::hasSeats).forEach(reservation ->
+                        seatService.releaseSeats(eventId, reservation.getSectionId(), reservation.getSeats()));
+
+                for (Reservation reservation : held) {
+                    publisher.publish(eventId, InventoryEvent.failure(
+                            reservation.getTransactionId(),
+                            reservation.getUserId(),
+                            eventId,
+                            reservation.getTicketCount(),
+                            InventoryEvent.EventType.INVENTORY_COMPENSATED,
+                            "Reservation hold expired"
+                    ));
+                }
+                return held.size();
+            });
+        } catch (Exception e) {
+            log.error("Failed to expire {} reservation holds for event {}", ids.size(), eventId, e);
+            released = null;
+        }
+
+        if (released == null) {
+            // Raced with another writer or failed: try these again a little later
+            LocalDateTime retryAt = LocalDateTime.now().plus(Duration.ofMillis(retryMs));
+            ids.forEach(id -> schedule(id, eventId, retryAt));
+            return 0;
+        }
+        expired.increment(released);
+        return released;
+    }
+
+    private double activeHolds() {
+        synchronized (wheel) {
+            return wheel.size();
+        }
+    }
+
+    private static void afterCommit(Runnable action) {
+        if (!TransactionSynchronizationManager.isSynchronizationActive()) {
+            action.run();
+            return;
+        }
+        TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+            @Override
+            public void afterCommit() {
+                action.run();
+            }
+        });
+    }
+
+    @PreDestroy
+    public void shutdown() {
+        ticker.shutdownNow();
+    }
+}
@@ -0,0 +1,105 @@
+package com.erez.ticketbot.inventoryservice.service;
+
+import java.util.Collection;
+import java.util.List;
+import java.util.Map;
+import java.util.TreeMap;
+
+/**
+ * Read-only view over a section's seat bitmap (bit set = seat taken, row-major).
+ * Scans move a 64-seat word at a time: inverting a word and counting trailing zeros
+ * finds the next free seat, so a mostly sold-out arena costs a few hundred word reads.
+ */
+final class SeatBitmap {
+
+    private final long[] words;
+    private final int rows;
+    private final int seatsPerRow;
+
+    SeatBitmap(List<Long> taken, int rows, int seatsPerRow) {
+        this.words = new long[taken.size()];
+        for (int i = 0; i < words.length; i++) {
+            words[i] = taken.get(i);
+        }
+        this.rows = rows;
+        this.seatsPerRow = seatsPerRow;
+    }
+
+    int seatCount() {
+        return rows * seatsPerRow;
+    }
+
+    /**
+     * Best block of count adjacent seats: the front-most row that has one, and within that row
+     * the block closest to the centre. Blocks never wrap across rows.
+     *
+     * @return first seat of the block, or -1 if no row has count adjacent free seats
+     */
+    int findContiguous(int count) {
+        if (count <= 0 || count > seatsPerRow) {
+            return -1;
+        }
+        for (int row = 0; row < rows; row++) {
+            int rowStart = row * seatsPerRow;
+            int rowEnd = rowStart + seatsPerRow;
+            double centre = rowStart + seatsPerRow / 2.0;
+            int best = -1;
+            double bestDistance = Double.MAX_VALUE;
+
+            int free = nextFree(rowStart, rowEnd);
+            while (free < rowEnd) {
+                int taken = nextTaken(free, rowEnd);
+                if (taken - free >= count) {
+                    // Slide the block as close to the centre as this free run allows
+                    int start = Math.max(free, Math.min((int) Math.round(centre - count / 2.0), taken - count));
+                    double distance = Math.abs(start + count / 2.0 - centre);
+                    if (distance < bestDistance) {
+                        best = start;
+                        bestDistance = distance;
+                    }
+                }
+                free = nextFree(taken, rowEnd);
+            }
+            if (best >= 0) {
+                return best;
+            }
+        }
+        return -1;
+    }
+
+    // First free seat in [from, to), or to
+    private int nextFree(int from, int to) {
+        return nextMatching(from, to, -1L);
+    }
+
+    // First taken seat in [from, to), or to
+    private int nextTaken(int from, int to) {
+        return nextMatching(from, to, 0L);
+    }
+
+    // flip = -1 scans for clear bits, 0 for set bits
+    private int nextMatching(int from, int to, long flip) {
+        if (from >= to) {
+            return to;
+        }
+        int word = from >>> 6;
+        long bits = (words[word] ^ flip) & (-1L << from);
+        while (bits == 0) {
+            word++;
+            if (word >= words.length || (word << 6) >= to) {
+                return to;
+            }
+            bits = words[word] ^ flip;
+        }
+        return Math.min(to, (word << 6) + Long.numberOfTrailingZeros(bits));
+    }
+
+    // wordIndex -> mask of the given seats, the shape SeatMapOperations updates with
+    static Map<Integer, Long> wordMasks(Collection<Integer> seats) {
+        Map<Integer, Long> masks = new TreeMap<>();
+        for (int seat : seats) {
+            masks.merge(seat >>> 6, 1L << seat, (a, b) -> a | b);
+        }
+        return masks;
+    }
+}
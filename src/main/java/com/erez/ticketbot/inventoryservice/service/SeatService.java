@@ -0,0 +1,135 @@
+package com.erez.ticketbot.inventoryservice.service;
+
+import com.erez.ticketbot.inventoryservice.entity.Event;
+import com.erez.ticketbot.inventoryservice.entity.SeatMap;
+import com.erez.ticketbot.inventoryservice.entity.Venue;
+import com.erez.ticketbot.inventoryservice.repository.EventRepository;
+import com.erez.ticketbot.inventoryservice.repository.SeatMapRepository;
+import com.erez.ticketbot.inventoryservice.response.SectionAvailabilityResponse;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.dao.OptimisticLockingFailureException;
+import org.springframework.stereotype.Service;
+
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.stream.Collectors;
+
+/**
+ * Assigned seating on top of per-section seat bitmaps.
+ * Seat maps are created lazily from the event's venue sections. Specific seats are claimed with
+ * one guarded update; "best N" picks a block from a snapshot and claims it the same way.
+ * Callers run inside a transaction, whose snapshot would not show a concurrent claim, so a lost
+ * race is not retried here: it throws (OptimisticLockingFailureException or a WriteConflict) and
+ * InventoryService.reserveSeats retries in a new transaction.
+ */
+@Slf4j
+@Service
+public class SeatService {
+
+    private final SeatMapRepository seatMapRepository;
+    private final EventRepository eventRepository;
+
+    @Autowired
+    public SeatService(SeatMapRepository seatMapRepository,
+                       EventRepository eventRepository) {
+        this.seatMapRepository = seatMapRepository;
+        this.eventRepository = eventRepository;
+    }
+
+    public List<Integer> claimSeats(Long eventId, String sectionId, List<Integer> seats) {
+        final SeatMap seatMap = seatMap(eventId, sectionId);
+        final int seatCount = seatMap.getRows() * seatMap.getSeatsPerRow();
+        if (new HashSet<>(seats).size() != seats.size()) {
+            throw new RuntimeException("Duplicate seats requested in section " + sectionId);
+        }
+        for (int seat : seats) {
+            if (seat < 0 || seat >= seatCount) {
+                throw new RuntimeException(String.format("Seat %d does not exist in section %s", seat, sectionId));
+            }
+        }
+
+        if (!seatMapRepository.claimSeats(eventId, sectionId, SeatBitmap.wordMasks(seats), seats.size())) {
+            throw new RuntimeException(String.format("Seats %s in section %s are no longer available", seats, sectionId));
+        }
+        return seats;
+    }
+
+    public List<Integer> claimBestAvailable(Long eventId, String sectionId, int count) {
+        final SeatMap seatMap = seatMap(eventId, sectionId);
+        final int start = bitmap(seatMap).findContiguous(count);
+        if (start < 0) {
+            throw new RuntimeException(String.format("No %d adjacent seats available in section %s", count, sectionId));
+        }
+
+        final List<Integer> seats = new ArrayList<>(count);
+        for (int seat = start; seat < start + count; seat++) {
+            seats.add(seat);
+        }
+        if (!seatMapRepository.claimSeats(eventId, sectionId, SeatBitmap.wordMasks(seats), count)) {
+            throw new OptimisticLockingFailureException(String.format(
+                    "Seat block %d-%d in section %s of event %d was taken concurrently",
+                    start, start + count - 1, sectionId, eventId));
+        }
+        return seats;
+    }
+
+    public void releaseSeats(Long eventId, String sectionId, List<Integer> seats) {
+        if (!seatMapRepository.releaseSeats(eventId, sectionId, SeatBitmap.wordMasks(seats), seats.size())) {
+            log.warn("Seats {} in section {} of event {} were not all taken, nothing released",
+                    seats, sectionId, eventId);
+        }
+    }
+
+    public List<SectionAvailabilityResponse> getAvailability(Long eventId) {
+        final Event event = findEvent(eventId);
+        final Map<String, SeatMap> existing = seatMapRepository.findByEventId(eventId).stream()
+                .collect(Collectors.toMap(SeatMap::getSectionId, seatMap -> seatMap));
+
+        final List<SectionAvailabilityResponse> sections = new ArrayList<>();
+        for (Venue.Section section : sections(event)) {
+            final SeatMap seatMap = existing.containsKey(section.getId())
+                    ? existing.get(section.getId())
+                    : seatMap(eventId, section.getId());
+            sections.add(SectionAvailabilityResponse.builder()
+                    .sectionId(seatMap.getSectionId())
+                    .rows(seatMap.getRows())
+                    .seatsPerRow(seatMap.getSeatsPerRow())
+                    .available(seatMap.getAvailable())
+                    .taken(seatMap.getTaken())
+                    .build());
+        }
+        return sections;
+    }
+
+    private SeatMap seatMap(Long eventId, String sectionId) {
+        return seatMapRepository.findByEventIdAndSectionId(eventId, sectionId).orElseGet(() -> {
+            final Venue.Section section = sections(findEvent(eventId)).stream()
+                    .filter(candidate -> candidate.getId().equals(sectionId))
+                    .findFirst()
+                    .orElseThrow(() -> new RuntimeException(
+                            String.format("Section %s not found for event %d", sectionId, eventId)));
+            seatMapRepository.ensureSeatMap(eventId, section);
+            return seatMapRepository.findByEventIdAndSectionId(eventId, sectionId)
+                    .orElseThrow(() -> new RuntimeException("Seat map not created for section " + sectionId));
+        });
+    }
+
+    private Event findEvent(Long eventId) {
+        return eventRepository.findById(eventId)
+                .orElseThrow(() -> new RuntimeException("Event not found: " + eventId));
+    }
+
+    private static List<Venue.Section> sections(Event event) {
+        if (event.getVenue() == null || event.getVenue().getSections() == null) {
+            return List.of();
+        }
+        return event.getVenue().getSections();
+    }
+
+    private static SeatBitmap bitmap(SeatMap seatMap) {
+        return new SeatBitmap(seatMap.getTaken(), seatMap.getRows(), seatMap.getSeatsPerRow());
+    }
+}
@@ -0,0 +1,116 @@
+package com.erez.ticketbot.inventoryservice.service;
+
+import com.erez.ticketbot.inventoryservice.dto.CapacityUpdateResult;
+import com.erez.ticketbot.inventoryservice.entity.CapacityShard;
+import com.erez.ticketbot.inventoryservice.entity.Event;
+import com.erez.ticketbot.inventoryservice.repository.CapacityShardRepository;
+import com.erez.ticketbot.inventoryservice.repository.EventRepository;
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ThreadLocalRandom;
+
+/**
+ * Capacity of hot events split across CapacityShard documents, so concurrent bookings for one
+ * event update different documents instead of queueing on a single one.
+ * A booking starts at the shard its routing key hashes to and moves on to the next shards,
+ * then to the Event document (where seats released without a shard go back), when one is short.
+ * A booking is never split across shards.
+ */
+@Slf4j
+@Service
+public class ShardedCapacity {
+
+    private final CapacityShardRepository shardRepository;
+    private final EventRepository eventRepository;
+    // Reads sum the shards; keep that to one aggregation per event per sum-ttl-ms
+    private final Cache<Long, Long> sums;
+
+    @Autowired
+    public ShardedCapacity(CapacityShardRepository shardRepository,
+                           EventRepository eventRepository,
+                           @Value("${inventory.capacity.shards.sum-ttl-ms:250}") long sumTtlMs) {
+        this.shardRepository = shardRepository;
+        this.eventRepository = eventRepository;
+        this.sums = Caffeine.newBuilder()
+                .maximumSize(10_000)
+                .expireAfterWrite(Duration.ofMillis(sumTtlMs))
+                .build();
+    }
+
+    public CapacityUpdateResult reserve(Long eventId, int shards, String routingKey, long tickets) {
+        final int first = routingKey == null
+                ? ThreadLocalRandom.current().nextInt(shards)
+                : Math.floorMod(routingKey.hashCode(), shards);
+        for (int i = 0; i < shards; i++) {
+            final int shard = (first + i) % shards;
+            final Long left = shardRepository.reserveFromShard(eventId, shard, tickets);
+            if (left != null) {
+                return CapacityUpdateResult.updated(left, shard);
+            }
+        }
+
+        final CapacityUpdateResult fromEvent = eventRepository.reserveCapacity(eventId, tickets);
+        if (fromEvent.outcome() != CapacityUpdateResult.Outcome.INSUFFICIENT_CAPACITY) {
+            return fromEvent;
+        }
+        // Report the most a single update could take, which is what batch callers fit against
+        long largest = fromEvent.leftCapacity();
+        for (CapacityShard shard : shardRepository.findByEventId(eventId)) {
+            largest = Math.max(largest, shard.getLeftCapacity());
+        }
+        return CapacityUpdateResult.insufficient(largest);
+    }
+
+    public CapacityUpdateResult release(Long eventId, int shard, long tickets) {
+        final Long left = shardRepository.releaseToShard(eventId, shard, tickets);
+        return left == null ? CapacityUpdateResult.notFound() : CapacityUpdateResult.updated(left, shard);
+    }
+
+    public long leftCapacity(Long eventId) {
+        return sums.get(eventId, shardRepository::sumLeftCapacity);
+    }
+
+    /**
+     * Moves the event's leftCapacity into shards documents, spread evenly.
+     *
+     * @return the capacity that was split
+     */
+    @Transactional
+    public long split(Long eventId, int shards) {
+        if (shards < 2) {
+            throw new RuntimeException("Capacity shards must be at least 2, requested: " + shards);
+        }
+        final Event event = eventRepository.findById(eventId)
+                .orElseThrow(() -> new RuntimeException("Event not found: " + eventId));
+        if (event.getCapacityShards() != null && event.getCapacityShards() > 0) {
+            throw new RuntimeException(String.format("Event %d is already split into %d capacity shards",
+                    eventId, event.getCapacityShards()));
+        }
+
+        final Long taken = eventRepository.takeLeftCapacity(eventId);
+        final long left = taken == null ? 0L : taken;
+        final List<CapacityShard> documents = new ArrayList<>(shards);
+        for (int shard = 0; shard < shards; shard++) {
+            documents.add(CapacityShard.builder()
+                    .eventId(eventId)
+                    .shard(shard)
+                    .leftCapacity(left / shards + (shard < left % shards ? 1 : 0))
+                    .build());
+        }
+        shardRepository.insert(documents);
+        eventRepository.setCapacityShards(eventId, shards);
+        sums.invalidate(eventId);
+
+        log.info("Split {} left capacity of event {} across {} shards", left, eventId, shards);
+        return left;
+    }
+}
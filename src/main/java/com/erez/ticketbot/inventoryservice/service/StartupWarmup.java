@@ -0,0 +1,211 @@
+package com.erez.ticketbot.inventoryservice.service;
+
+import com.erez.ticketbot.inventoryservice.entity.Event;
+import com.erez.ticketbot.inventoryservice.event.InventoryEvent;
+import com.erez.ticketbot.inventoryservice.repository.EventRepository;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.context.SmartLifecycle;
+import org.springframework.data.mongodb.core.MongoTemplate;
+import org.springframework.kafka.core.KafkaTemplate;
+import org.springframework.stereotype.Component;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Optional;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.stream.Stream;
+
+/**
+ * Warms the service up before it takes traffic, enabled by default (inventory.warmup.enabled).
+ * In parallel: opens pool-connections MongoDB connections, connects the Kafka producer, streams
+ * every Event (in parallelism id ranges) to render its EventInventoryView body, and drives
+ * read-iterations inventory reads through the real InventoryService so the JIT has compiled the
+ * read paths before traffic arrives. Only what outlives the warm-up is loaded: the view bodies
+ * last inventory.cache.view-ttl-ms, while InventoryReadCache entries expire after
+ * inventory.cache.ttl-ms (a second by default) and are left to the first reads. Bookings are not
+ * rehearsed: that would need stand-ins for Mongo and Kafka, and those stay in the benchmarks.
+ * Runs as a lifecycle phase after the web server and before the Kafka listener containers, inside
+ * context refresh, so readiness (/actuator/health/readiness) only turns ACCEPTING_TRAFFIC and
+ * booking-events only start flowing once it is done. Failures and timeout-ms are logged, never fatal.
+ * Duration is published as inventory.warmup.duration.
+ */
+@Slf4j
+@Component
+@ConditionalOnProperty(name = "inventory.warmup.enabled", havingValue = "true", matchIfMissing = true)
+public class StartupWarmup implements SmartLifecycle {
+
+    // Kafka listener containers start at Integer.MAX_VALUE - 100
+    private static final int PHASE = Integer.MAX_VALUE - 200;
+
+    private final EventRepository eventRepository;
+    private final EventInventoryView inventoryView;
+    private final InventoryService inventoryService;
+    private final MongoTemplate mongoTemplate;
+    private final KafkaTemplate<String, InventoryEvent> kafkaTemplate;
+    private final Timer duration;
+    private final int parallelism;
+    private final int poolConnections;
+    private final int readIterations;
+    private final long timeoutMs;
+    private volatile boolean running;
+
+    @Autowired
+    public StartupWarmup(EventRepository eventRepository,
+                         EventInventoryView inventoryView,
+                         InventoryService inventoryService,
+                         MongoTemplate mongoTemplate,
+                         KafkaTemplate<String, InventoryEvent> kafkaTemplate,
+                         MeterRegistry registry,
+                         @Value("${inventory.warmup.parallelism:4}") int parallelism,
+                         @Value("${inventory.warmup.pool-connections:8}") int poolConnections,
+                         @Value("${inventory.warmup.read-iterations:20000}") int readIterations,
+                         @Value("${inventory.warmup.timeout-ms:60000}") long timeoutMs) {
+        this.eventRepository = eventRepository;
+        this.inventoryView = inventoryView;
+        this.inventoryService = inventoryService;
+        this.mongoTemplate = mongoTemplate;
+        this.kafkaTemplate = kafkaTemplate;
+        this.duration = Timer.builder("inventory.warmup.duration").register(registry);
+        this.parallelism = Math.max(1, parallelism);
+        this.poolConnections = poolConnections;
+        this.readIterations = readIterations;
+        this.timeoutMs = timeoutMs;
+    }
+
+    @Override
+    public void start() {
+        long started = System.nanoTime();
+        // One thread per step, plus room for the pings and event ranges the steps wait on
+        ExecutorService executor = Executors.newFixedThreadPool(4 + poolConnections + parallelism, runnable -> {
+            Thread thread = new Thread(runnable, "startup-warmup");
+            thread.setDaemon(true);
+            return thread;
+        });
+        try {
+            AtomicLong events = new AtomicLong();
+            CompletableFuture<Void> warmup = CompletableFuture.allOf(
+                    step("mongo connections", () -> openConnections(executor), executor),
+                    step("kafka producer", () -> kafkaTemplate.partitionsFor(InventoryEventPublisher.TOPIC), executor),
+                    step("events", () -> events.set(loadEvents(executor)), executor),
+                    step("inventory reads", this::readInventory, executor));
+            warmup.get(timeoutMs, TimeUnit.MILLISECONDS);
+
+            long elapsed = System.nanoTime() - started;
+            duration.record(elapsed, TimeUnit.NANOSECONDS);
+            log.info("Startup warm-up finished in {} ms: {} event bodies rendered, {} inventory reads",
+                    TimeUnit.NANOSECONDS.toMillis(elapsed), events.get(), readIterations);
+        } catch (TimeoutException e) {
+            duration.record(System.nanoTime() - started, TimeUnit.NANOSECONDS);
+            log.warn("Startup warm-up did not finish within {} ms, taking traffic anyway", timeoutMs);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        } catch (Exception e) {
+            log.warn("Startup warm-up failed", e);
+        } finally {
+            executor.shutdownNow();
+            running = true;
+        }
+    }
+
+    // Each step logs its own failure; the others still run
+    private static CompletableFuture<Void> step(String name, Runnable step, ExecutorService executor) {
+        return CompletableFuture.runAsync(step, executor).exceptionally(e -> {
+            log.warn("Warm-up step '{}' failed: {}", name, e.getMessage());
+            return null;
+        });
+    }
+
+    // Concurrent pings, released together, so each one needs a connection of its own
+    private void openConnections(ExecutorService executor) {
+        CountDownLatch go = new CountDownLatch(1);
+        List<CompletableFuture<Void>> pings = new ArrayList<>(poolConnections);
+        for (int i = 0; i < poolConnections; i++) {
+            pings.add(CompletableFuture.runAsync(() -> {
+                try {
+                    go.await();
+                } catch (InterruptedException e) {
+                    Thread.currentThread().interrupt();
+                    return;
+                }
+                mongoTemplate.executeCommand("{ ping: 1 }");
+            }, executor));
+        }
+        go.countDown();
+        CompletableFuture.allOf(pings.toArray(CompletableFuture[]::new)).join();
+    }
+
+    /**
+     * Splits [min id, max id] into parallelism ranges and streams each on its own cursor,
+     * rendering every event's inventory body. Ends with the listing body.
+     * @return number of events rendered
+     */
+    private long loadEvents(ExecutorService executor) {
+        Optional<Long> min = eventRepository.findMinId();
+        Optional<Long> max = eventRepository.findMaxId();
+        if (min.isEmpty() || max.isEmpty()) {
+            return 0;
+        }
+
+        long span = max.get() - min.get() + 1;
+        long width = Math.max(1, (span + parallelism - 1) / parallelism);
+        AtomicLong loaded = new AtomicLong();
+        List<CompletableFuture<Void>> ranges = new ArrayList<>(parallelism);
+        for (long from = min.get(); from <= max.get(); from += width) {
+            long first = from;
+            long last = Math.min(max.get(), from + width - 1);
+            ranges.add(CompletableFuture.runAsync(() -> {
+                try (Stream<Event> range = eventRepository.streamRange(first, last)) {
+                    range.forEach(event -> {
+                        inventoryView.warm(event);
+                        loaded.incrementAndGet();
+                    });
+                }
+            }, executor));
+        }
+        CompletableFuture.allOf(ranges.toArray(CompletableFuture[]::new)).join();
+        inventoryView.allEventsJson();
+        return loaded.get();
+    }
+
+    // Read paths only, through the real beans: nothing is written or published
+    private void readInventory() {
+        List<Long> eventIds = eventRepository.findInventoryPage(null, 100).stream().map(Event::getId).toList();
+        if (eventIds.isEmpty()) {
+            return;
+        }
+        for (int i = 0; i < readIterations; i++) {
+            Long eventId = eventIds.get(i % eventIds.size());
+            inventoryService.getEventInventory(eventId);
+            inventoryService.getEventInventoryJson(eventId);
+            if (i % 100 == 0) {
+                inventoryService.getAllEventsJson();
+            }
+        }
+    }
+
+    @Override
+    public void stop() {
+        running = false;
+    }
+
+    @Override
+    public boolean isRunning() {
+        return running;
+    }
+
+    @Override
+    public int getPhase() {
+        return PHASE;
+    }
+}
@@ -0,0 +1,191 @@
+package com.erez.ticketbot.inventoryservice.service;
+
+import com.erez.ticketbot.inventoryservice.dto.CapacityUpdateResult;
+import com.erez.ticketbot.inventoryservice.entity.Reservation;
+import com.erez.ticketbot.inventoryservice.event.InventoryEvent;
+import com.erez.ticketbot.inventoryservice.repository.ReservationRepository;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import jakarta.annotation.PreDestroy;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.data.domain.Limit;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+
+/**
+ * Gives back the seats of RESERVED reservations whose saga never completed.
+ * Reservations older than max-age are fetched oldest first, grouped by eventId and compensated
+ * with events in parallel. Each event is one transaction: conditional bulk RESERVED -> COMPENSATED
+ * transitions of up to chunk-size ids each, then a single capacity increment for all its tickets
+ * (one per capacity shard on sharded events), so no two writers ever race on the same Event
+ * document. INVENTORY_COMPENSATED events go out with the commit (see InventoryEventPublisher).
+ * The reservations TTL index only removes COMPENSATED / FAILED ones, so stuck reservations stay
+ * until they are reaped however old they get.
+ * Disabled by default: only enable it where completed sagas move reservations out of RESERVED,
+ * otherwise finished bookings are compensated too.
+ */
+@Slf4j
+@Component
+@ConditionalOnProperty(name = "inventory.reaper.enabled", havingValue = "true")
+public class StuckReservationReaper {
+
+    private final ReservationRepository reservationRepository;
+    private final CapacityService capacityService;
+    private final SeatService seatService;
+    private final InventoryEventPublisher publisher;
+    private final TransactionTemplate transactionTemplate;
+    private final ExecutorService executor;
+    private final Duration maxAge;
+    private final int fetchSize;
+    private final int chunkSize;
+    private final int maxRoundsPerRun;
+    private final Counter reaped;
+
+    @Autowired
+    public StuckReservationReaper(ReservationRepository reservationRepository,
+                                  CapacityService capacityService,
+                                  SeatService seatService,
+                                  InventoryEventPublisher publisher,
+                                  PlatformTransactionManager transactionManager,
+                                  MeterRegistry registry,
+                                  @Value("${inventory.reaper.max-age-minutes:30}") long maxAgeMinutes,
+                                  @Value("${inventory.reaper.fetch-size:5000}") int fetchSize,
+                                  @Value("${inventory.reaper.chunk-size:500}") int chunkSize,
+                                  @Value("${inventory.reaper.parallelism:4}") int parallelism,
+                                  @Value("${inventory.reaper.max-rounds-per-run:20}") int maxRoundsPerRun) {
+        this.reservationRepository = reservationRepository;
+        this.capacityService = capacityService;
+        this.seatService = seatService;
+        this.publisher = publisher;
+        this.transactionTemplate = new TransactionTemplate(transactionManager);
+        this.maxAge = Duration.ofMinutes(maxAgeMinutes);
+        this.fetchSize = fetchSize;
+        this.chunkSize = chunkSize;
+        this.maxRoundsPerRun = maxRoundsPerRun;
+        this.reaped = Counter.builder("inventory.reaper.compensated").register(registry);
+        this.executor = Executors.newFixedThreadPool(parallelism, runnable -> {
+            Thread thread = new Thread(runnable, "reservation-reaper");
+            thread.setDaemon(true);
+            return thread;
+        });
+    }
+
+    @Scheduled(fixedDelayString = "${inventory.reaper.interval-ms:60000}",
+            initialDelayString = "${inventory.reaper.initial-delay-ms:30000}")
+    public void run() {
+        int total = reap();
+        if (total > 0) {
+            log.info("Reaper compensated {} stuck reservations", total);
+        }
+    }
+
+    /**
+     * @return number of reservations compensated
+     */
+    public int reap() {
+        LocalDateTime cutoff = LocalDateTime.now().minus(maxAge);
+        int total = 0;
+
+        for (int round = 0; round < maxRoundsPerRun; round++) {
+            List<Reservation> stuck = reservationRepository.findStuckReservations(
+                    cutoff, Reservation.ReservationStatus.RESERVED, Limit.of(fetchSize));
+            if (stuck.isEmpty()) {
+                break;
+            }
+
+            Map<Long, List<Reservation>> byEvent = new LinkedHashMap<>();
+            stuck.forEach(reservation ->
+                    byEvent.computeIfAbsent(reservation.getEventId(), id -> new ArrayList<>()).add(reservation));
+
+            List<CompletableFuture<Integer>> events = new ArrayList<>(byEvent.size());
+            byEvent.forEach((eventId, reservations) ->
+                    events.add(CompletableFuture.supplyAsync(() -> compensateEvent(eventId, reservations), executor)));
+
+            int compensated = events.stream().mapToInt(CompletableFuture::join).sum();
+            total += compensated;
+            // A short page means the backlog is drained; no progress means the rest keeps racing
+            if (stuck.size() < fetchSize || compensated == 0) {
+                break;
+            }
+        }
+        return total;
+    }
+
+    private int compensateEvent(Long eventId, List<Reservation> reservations) {
+        List<String> ids = reservations.stream().map(Reservation::getId).toList();
+        long tickets = reservations.stream().mapToLong(Reservation::getTicketCount).sum();
+
+        try {
+            Boolean committed = transactionTemplate.execute(status -> {
+                for (int from = 0; from < ids.size(); from += chunkSize) {
+                    List<String> chunk = ids.subList(from, Math.min(from + chunkSize, ids.size()));
+                    long transitioned = reservationRepository.transitionStatus(chunk,
+                            Reservation.ReservationStatus.RESERVED, Reservation.ReservationStatus.COMPENSATED);
+                    if (transitioned != chunk.size()) {
+                        // Some were compensated or confirmed meanwhile; the next round refetches the rest
+                        status.setRollbackOnly();
+                        return false;
+                    }
+                }
+
+                // Sharded events take tickets back into the shard they came from
+                Map<Integer, Long> ticketsByShard = new HashMap<>();
+                reservations.forEach(reservation ->
+                        ticketsByShard.merge(reservation.getCapacityShard(), reservation.getTicketCount(), Long::sum));
+                ticketsByShard.forEach((shard, shardTickets) -> {
+                    CapacityUpdateResult capacity = capacityService.release(eventId, shardTickets, shard);
+                    if (capacity.outcome() == CapacityUpdateResult.Outcome.EVENT_NOT_FOUND) {
+                        log.warn("Event {} no longer exists, marking {} stuck reservations COMPENSATED without capacity",
+                                eventId, ids.size());
+                    }
+                });
+                reservations.stream().filter(Reservation::hasSeats).forEach(reservation ->
+                        seatService.releaseSeats(eventId, reservation.getSectionId(), reservation.getSeats()));
+
+                // Outbox entries commit with the transitions; direct sends are deferred until after commit
+                for (Reservation reservation : reservations) {
+                    publisher.publish(eventId, new InventoryEvent(
+                            reservation.getTransactionId(),
+                            reservation.getUserId(),
+                            eventId,
+                            reservation.getTicketCount(),
+                            null,
+                            InventoryEvent.EventType.INVENTORY_COMPENSATED
+                    ));
+                }
+                return true;
+            });
+            if (!Boolean.TRUE.equals(committed)) {
+                return 0;
+            }
+        } catch (Exception e) {
+            log.error("Failed to compensate {} stuck reservations for event {}", ids.size(), eventId, e);
+            return 0;
+        }
+
+        reaped.increment(ids.size());
+        log.debug("Compensated {} stuck reservations ({} tickets) for event {}", ids.size(), tickets, eventId);
+        return ids.size();
+    }
+
+    @PreDestroy
+    public void shutdown() {
+        executor.shutdown();
+    }
+}
@@ -40,7 +40,12 @@ db.venues.createIndex({ 'name': 1 });
 db.reservations.createIndex({ 'transactionId': 1 }, { unique: true });
 db.reservations.createIndex({ 'eventId': 1 });
 db.reservations.createIndex({ 'status': 1 });
-db.reservations.createIndex({ 'createdAt': 1 }, { expireAfterSeconds: 86400 }); // TTL index: 24 hours
+// TTL index: 24 hours, terminal reservations that hold no tickets only. RESERVED and CONFIRMED
+// reservations are what capacity reconciliation counts, so they must not expire
+db.reservations.createIndex({ 'createdAt': 1 }, {
+  expireAfterSeconds: 86400,
+  partialFilterExpression: { 'status': { $in: ['COMPENSATED', 'FAILED'] } }
+});
 
 // ============================================
 // BOOKING SERVICE DATABASE (SAGA Support)